@@ -0,0 +1,35 @@
+package com.stroby;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: takes the usual JMH command line and always adds the
+ * GC profiler, so every result comes with its allocation rate per operation.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        List<String> jvmArgs = new ArrayList<>();
+        // lets DeadEndFillingSolver use its vectorized kernel in the forked JVMs
+        jvmArgs.add("--add-modules");
+        jvmArgs.add("jdk.incubator.vector");
+        // the forked JVMs share the maze spill directory of MazeState, if one is given
+        String cache = System.getProperty("maze.cache");
+        if (cache != null){
+            jvmArgs.add("-Dmaze.cache=" + cache);
+        }
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend(jvmArgs.toArray(new String[0]))
+                .build()).run();
+    }
+}
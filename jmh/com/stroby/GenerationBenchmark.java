@@ -0,0 +1,44 @@
+package com.stroby;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"1", "2"})
+    public long seed;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Benchmark
+    public MazeGrid generate() {
+        MazeGrid grid = new MazeGrid(size, size);
+        MazeGenerator.generate(grid, seed, threads);
+        return grid;
+    }
+
+    @Benchmark
+    public SequentialMaze sequentialMaze() {
+        return new SequentialMaze(size, size, new Point(size-1, 0), new Point(0, size-1), seed);
+    }
+}
@@ -0,0 +1,39 @@
+package com.stroby;
+
+import java.nio.file.Path;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One generated maze per (size, seed), shared by all solver benchmarks. With
+ * -Dmaze.cache=<dir> the mazes are generated once and loaded from there by later forks.
+ */
+@State(Scope.Benchmark)
+public class MazeState {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"1", "2"})
+    public long seed;
+
+    private static final MazeCache CACHE = new MazeCache(Long.MAX_VALUE,
+            System.getProperty("maze.cache") == null ? null : Path.of(System.getProperty("maze.cache")));
+
+    SequentialMaze maze;
+    MazeGrid grid;
+    int start;
+    int end;
+    NodeSolver nodeSolver;
+
+    @Setup
+    public void setup() {
+        maze = CACHE.maze(new MazeCache.Key(size, size, new Point(size-1, 0), new Point(0, size-1), seed));
+        grid = maze.getGrid();
+        start = grid.index(maze.getStart());
+        end = grid.index(maze.getEnd());
+        nodeSolver = new NodeSolver(grid, start, end);
+    }
+}
@@ -0,0 +1,80 @@
+package com.stroby;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Multi threaded solvers, on the same mazes as SolverBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelSolverBenchmark {
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private int[][] rules;
+
+    @Setup
+    public void setup() {
+        rules = new int[threads][];
+        for (int i = 0; i < threads; i++){
+            rules[i] = new int[]{i};
+        }
+    }
+
+    @Benchmark
+    public void solveMazeMulti(MazeState state) {
+        state.nodeSolver.solveMazeMulti(threads, rules);
+    }
+
+    @Benchmark
+    public int[] cooperative(MazeState state) {
+        return CooperativeSolver.solve(state.grid, state.start, state.end, threads);
+    }
+
+    @Benchmark
+    public int[] tiled(MazeState state) {
+        return TiledSolver.solve(state.grid, state.start, state.end, threads);
+    }
+
+    @Benchmark
+    public int[] forkJoin(MazeState state) {
+        return ForkJoinSolver.solve(state.grid, state.start, state.end, threads);
+    }
+
+    @Benchmark
+    public int[] deadEndFilling(MazeState state) {
+        return DeadEndFillingSolver.solve(state.grid, state.start, state.end, threads);
+    }
+
+    @Benchmark
+    public int[] parallelBfs(MazeState state) {
+        return ParallelBfsSolver.solve(state.grid, state.start, state.end, threads);
+    }
+
+    @Benchmark
+    public JunctionGraph buildJunctionGraph(MazeState state) {
+        return JunctionGraph.build(state.grid, state.start, state.end, threads);
+    }
+
+    @Benchmark
+    public int[] branchExplorer(MazeState state) {
+        return BranchExplorerSolver.solve(state.grid, state.start, state.end, threads * BranchExplorerSolver.DEFAULT_MAX_BRANCHES / 4);
+    }
+}
@@ -0,0 +1,49 @@
+package com.stroby;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * solveMazeRecursiv recurses once per path cell, so like NodeSolver.run it is only
+ * measured on mazes up to 100x100.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecursiveSolverBenchmark {
+
+    @Param({"30", "100"})
+    public int size;
+
+    @Param({"1", "2"})
+    public long seed;
+
+    private NodeSolver solver;
+    private int[] path;
+
+    @Setup
+    public void setup() {
+        SequentialMaze maze = new SequentialMaze(size, size, new Point(size-1, 0), new Point(0, size-1), seed);
+        solver = new NodeSolver(maze);
+        path = new int[size * size];
+    }
+
+    @Benchmark
+    public int[] solveMazeRecursiv() {
+        return solver.solveMazeRecursiv(solver.getStart(), path, 0);
+    }
+}
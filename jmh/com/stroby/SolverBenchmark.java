@@ -0,0 +1,57 @@
+package com.stroby;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single threaded solvers, plus the bidirectional solver which always uses two threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Benchmark
+    public Point[] solve(MazeState state) {
+        return state.maze.solve();
+    }
+
+    @Benchmark
+    public MazeGrid convertMaze(MazeState state) {
+        return NodeSolver.convertMaze(state.maze);
+    }
+
+    @Benchmark
+    public int[] solveMazeIntera(MazeState state) {
+        return state.nodeSolver.solveMazeIntera();
+    }
+
+    @Benchmark
+    public CompactPath solveMazeCompact(MazeState state) {
+        return state.nodeSolver.solveMazeCompact(null);
+    }
+
+    @Benchmark
+    public int[] solveMazeIteraWithRule(MazeState state) {
+        return state.nodeSolver.solveMazeIteraWithRule(new int[]{1});
+    }
+
+    @Benchmark
+    public int[] bidirectional(MazeState state) {
+        return BidirectionalSolver.solve(state.grid, state.start, state.end);
+    }
+
+    @Benchmark
+    public int[] aStar(MazeState state) {
+        return AStarSolver.solve(state.grid, state.start, state.end);
+    }
+}
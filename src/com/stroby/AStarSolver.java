@@ -0,0 +1,128 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * A* search from start to end. Cells are expanded in the order of the cost of the path to
+ * them plus the Manhattan distance left to end, so unlike the depth first solvers the search
+ * is drawn towards end and, in mazes with loops, finds a cheapest path. Among cells with the
+ * same estimate the one closer to end is expanded first.
+ *
+ * Every cell can have its own cost of stepping into it. The Manhattan distance is scaled by
+ * the smallest cost, which keeps the estimate from ever being too high, so the first time
+ * end is taken from the open set its path is a cheapest one, and no cell is expanded twice.
+ *
+ * The open set is an IndexedIntHeap and the path is kept as parent cell indices, so the
+ * search allocates a few arrays and nothing per cell.
+ */
+public final class AStarSolver {
+
+    private static final int MAX_TIE_BITS = 24;
+
+    private AStarSolver() {}
+
+    /**
+     * Every step costs 1, so the path found is a shortest one.
+     */
+    public static int[] solve(MazeGrid grid, int start, int end){
+        return solve(grid, start, end, null, null);
+    }
+
+    /**
+     * @param cost cost of stepping into each cell, at least 0, or null if every step costs 1
+     * @return a cheapest path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int[] cost){
+        return solve(grid, start, end, cost, null);
+    }
+
+    /**
+     * @param stats if not null, counts the expanded cells, and the largest size of the open set as peak depth
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int[] cost, ThreadStats stats){
+        int minCost = 1;
+        int maxCost = 1;
+        if (cost != null){
+            if (cost.length != grid.size()){
+                throw new IllegalArgumentException("Need a cost for each of the " + grid.size() + " cells, but got " + cost.length);
+            }
+            minCost = Integer.MAX_VALUE;
+            for (int c : cost){
+                if (c < 0){
+                    throw new IllegalArgumentException("Costs must not be negative, but got " + c);
+                }
+                minCost = Math.min(minCost, c);
+                maxCost = Math.max(maxCost, c);
+            }
+        }
+
+        // no path costs more than maxCost per cell, the bits of the key left over break ties
+        long largestKey = (long) maxCost * grid.size() + (long) (grid.getWidth() + grid.getHeight()) * minCost;
+        int tieBits = Math.max(0, Math.min(MAX_TIE_BITS, Long.numberOfLeadingZeros(largestKey) - 1));
+
+        int endX = grid.x(end);
+        int endY = grid.y(end);
+        long[] distance = new long[grid.size()]; // cost of the cheapest path found so far
+        int[] parent = new int[grid.size()];
+        Arrays.fill(distance, Long.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        IndexedIntHeap open = new IndexedIntHeap(grid.size());
+
+        distance[start] = 0;
+        parent[start] = start;
+        open.offer(start, key(0, estimate(grid, start, endX, endY, minCost), tieBits));
+        long expanded = 0;
+        long peakOpen = 1;
+        boolean found = false;
+        while (!open.isEmpty()){
+            int cell = open.poll();
+            expanded++;
+            if (cell == end){
+                found = true;
+                break;
+            }
+            int neighbors = grid.neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = grid.neighborAt(cell, k);
+                if (open.wasRemoved(next)){
+                    continue;
+                }
+                long d = distance[cell] + (cost == null ? 1 : cost[next]);
+                if (d < distance[next]){
+                    distance[next] = d;
+                    parent[next] = cell;
+                    open.offer(next, key(d, estimate(grid, next, endX, endY, minCost), tieBits));
+                }
+            }
+            peakOpen = Math.max(peakOpen, open.size());
+        }
+        if (stats != null){
+            stats.record(expanded, 0, peakOpen);
+        }
+        if (!found){
+            return null;
+        }
+
+        int length = 1;
+        for (int cell = end; cell != start; cell = parent[cell]){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1, cell = end; i >= 0; i--, cell = parent[cell]){
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    private static long estimate(MazeGrid grid, int cell, int endX, int endY, int minCost){
+        return (long) (Math.abs(grid.x(cell) - endX) + Math.abs(grid.y(cell) - endY)) * minCost;
+    }
+
+    /**
+     * Orders by distance + estimate, then by estimate, in one long: the sum goes into the high
+     * bits, the estimate (capped) into the tieBits low bits.
+     */
+    private static long key(long distance, long estimate, int tieBits){
+        return (distance + estimate) << tieBits | Math.min(estimate, (1L << tieBits) - 1);
+    }
+}
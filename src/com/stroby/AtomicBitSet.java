@@ -0,0 +1,35 @@
+package com.stroby;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed size bit set whose bits can be claimed by several threads without locking.
+ * Bits can only be set, never cleared, so a claimed cell stays claimed.
+ */
+public final class AtomicBitSet {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+
+    public AtomicBitSet(int size){
+        words = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * @return true if this call set the bit, false if it was already set (by any thread)
+     */
+    public boolean claim(int index){
+        long mask = 1L << index;
+        int word = index >>> 6;
+        if (((long) WORDS.getAcquire(words, word) & mask) != 0){
+            return false;
+        }
+        return ((long) WORDS.getAndBitwiseOr(words, word, mask) & mask) == 0;
+    }
+
+    public boolean get(int index){
+        return ((long) WORDS.getAcquire(words, index >>> 6) & (1L << index)) != 0;
+    }
+}
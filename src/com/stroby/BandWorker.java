@@ -0,0 +1,224 @@
+package com.stroby;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Worker process of the DistributedSolver, owning one band of rows of a maze file. It copies
+ * its band out of the mapped file, keeping only the passages inside the band, and tells the
+ * coordinator which part of the band every passage across the band border belongs to: cells
+ * connected inside the band get the same component label. Only components touching the
+ * border (or holding start or end) are labeled, since no other component can be on the path.
+ *
+ * The coordinator then connects the components of all bands, finds the sequence of them the
+ * path runs through, and asks every worker for the way through its components between the
+ * cells where the path enters and leaves them.
+ *
+ * Protocol, all ints big endian, worker to coordinator unless noted:
+ * band, width, components, top labels[width], bottom labels[width], start label, end label;
+ * coordinator to worker: segments, then per segment from x, from y, to x, to y;
+ * per segment: cells, then x, y per cell. Labels are -1 for cells without a passage across
+ * the border, and for start and end if they are not in the band.
+ *
+ * Usage: java com.stroby.BandWorker port band top rows mazeFile
+ */
+public final class BandWorker {
+
+    private final MazeGrid band; // only the passages inside of the band
+    private final int top;
+    private final int[] label; // component of each cell of the band, -1 if not labeled
+    private int components;
+
+    // breadth first search state of the segments, cells are seen in the current search if seen[cell] == stamp
+    private final int[] seen;
+    private final int[] from;
+    private final int[] queue;
+    private int stamp;
+
+    BandWorker(MazeView maze, int top, int rows){
+        this.top = top;
+        this.band = new MazeGrid(maze.getWidth(), rows);
+        for (int y = 0; y < rows; y++){
+            for (int x = 0; x < band.getWidth(); x++){
+                int bits = maze.passages(x, top + y);
+                if (y == 0){
+                    bits &= ~Direction.N.bit;
+                }
+                if (y == rows - 1){
+                    bits &= ~Direction.S.bit;
+                }
+                band.or(band.index(x, y), bits);
+            }
+        }
+        this.label = new int[band.size()];
+        this.seen = new int[band.size()];
+        this.from = new int[band.size()];
+        this.queue = new int[band.size()];
+        Arrays.fill(label, -1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5){
+            System.err.println("Usage: java com.stroby.BandWorker port band top rows mazeFile");
+            System.exit(2);
+        }
+        int port = Integer.parseInt(args[0]);
+        int bandIndex = Integer.parseInt(args[1]);
+        int top = Integer.parseInt(args[2]);
+        int rows = Integer.parseInt(args[3]);
+
+        BandWorker worker;
+        Point start;
+        Point end;
+        int[] topPassages;
+        int[] bottomPassages;
+        try (MappedMaze maze = MappedMaze.open(Path.of(args[4]))){
+            worker = new BandWorker(maze, top, rows);
+            start = maze.getStart();
+            end = maze.getEnd();
+            topPassages = new int[maze.getWidth()];
+            bottomPassages = new int[maze.getWidth()];
+            for (int x = 0; x < maze.getWidth(); x++){
+                topPassages[x] = maze.passages(x, top);
+                bottomPassages[x] = maze.passages(x, top + rows - 1);
+            }
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)){
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(bandIndex);
+            worker.writeLabels(out, topPassages, bottomPassages, start, end);
+            out.flush();
+            worker.answerSegments(in, out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Labels the components of the border cells with a passage out of the band and of start
+     * and end, and writes them.
+     */
+    void writeLabels(DataOutputStream out, int[] topPassages, int[] bottomPassages, Point start, Point end) throws IOException {
+        int width = band.getWidth();
+        int bottom = band.getHeight() - 1;
+        int[] topLabels = new int[width];
+        int[] bottomLabels = new int[width];
+        for (int x = 0; x < width; x++){
+            topLabels[x] = (topPassages[x] & Direction.N.bit) != 0 ? labelFrom(band.index(x, 0)) : -1;
+            bottomLabels[x] = (bottomPassages[x] & Direction.S.bit) != 0 ? labelFrom(band.index(x, bottom)) : -1;
+        }
+        int startLabel = contains(start) ? labelFrom(local(start)) : -1;
+        int endLabel = contains(end) ? labelFrom(local(end)) : -1;
+
+        out.writeInt(width);
+        out.writeInt(components);
+        for (int l : topLabels){
+            out.writeInt(l);
+        }
+        for (int l : bottomLabels){
+            out.writeInt(l);
+        }
+        out.writeInt(startLabel);
+        out.writeInt(endLabel);
+    }
+
+    /**
+     * @return the label of the component of the cell, labeling the whole component if it has none yet
+     */
+    private int labelFrom(int cell){
+        if (label[cell] >= 0){
+            return label[cell];
+        }
+        int component = components++;
+        label[cell] = component;
+        queue[0] = cell;
+        int tail = 1;
+        for (int head = 0; head < tail; head++){
+            int current = queue[head];
+            int neighbors = band.neighborCount(current);
+            for (int k = 0; k < neighbors; k++){
+                int next = band.neighborAt(current, k);
+                if (label[next] < 0){
+                    label[next] = component;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return component;
+    }
+
+    void answerSegments(DataInputStream in, DataOutputStream out) throws IOException {
+        int segments = in.readInt();
+        for (int i = 0; i < segments; i++){
+            Point from = new Point(in.readInt(), in.readInt());
+            Point to = new Point(in.readInt(), in.readInt());
+            if (!contains(from) || !contains(to)){
+                throw new IOException("Segment " + from + " -> " + to + " is not in the band of rows from " + top);
+            }
+            int[] path = path(local(from), local(to));
+            if (path == null){
+                throw new IOException("No way from " + from + " to " + to + " inside of the band");
+            }
+            out.writeInt(path.length);
+            for (int cell : path){
+                out.writeInt(band.x(cell));
+                out.writeInt(top + band.y(cell));
+            }
+        }
+    }
+
+    /**
+     * Breadth first search inside of the band.
+     * @return the cells from one cell to the other, or null if they are not connected in the band
+     */
+    int[] path(int origin, int target){
+        stamp++;
+        if (stamp == 0){
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+        seen[origin] = stamp;
+        queue[0] = origin;
+        int tail = 1;
+        for (int head = 0; head < tail && seen[target] != stamp; head++){
+            int cell = queue[head];
+            int neighbors = band.neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = band.neighborAt(cell, k);
+                if (seen[next] != stamp){
+                    seen[next] = stamp;
+                    from[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (seen[target] != stamp){
+            return null;
+        }
+        int length = 1;
+        for (int cell = target; cell != origin; cell = from[cell]){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1, cell = target; i >= 0; i--, cell = from[cell]){
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    private boolean contains(Point p){
+        return p.getY() >= top && p.getY() < top + band.getHeight();
+    }
+
+    private int local(Point p){
+        return band.index(p.getX(), p.getY() - top);
+    }
+}
@@ -0,0 +1,94 @@
+package com.stroby;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates and solves many independent mazes at the same time, one maze per task. Every
+ * maze is generated and solved on a single thread, so the threads scale over the mazes
+ * instead of over the cells of one maze, which is what counts for many medium sized mazes.
+ *
+ * The seed of maze i is the i-th value drawn from the batch seed, so a batch always
+ * contains the same mazes no matter how many threads solve it.
+ */
+public final class BatchSolver {
+
+    private BatchSolver() {}
+
+    /**
+     * @return the throughput and the latency of every maze, from the start of its generation until its path is verified
+     */
+    public static Result run(int mazes, int width, int height, long seed, int threads, MazeSolver solver){
+        long[] seeds = new long[mazes];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < mazes; i++){
+            seeds[i] = random.nextLong();
+        }
+        Point startPoint = new Point(width - 1, 0);
+        Point endPoint = new Point(0, height - 1);
+
+        long[] latencies = new long[mazes];
+        AtomicInteger failures = new AtomicInteger();
+        long started = System.nanoTime();
+        Parallel.forEach(threads, mazes, i -> {
+            long mazeStarted = System.nanoTime();
+            MazeGrid grid = new MazeGrid(width, height);
+            MazeGenerator.generate(grid, seeds[i], 1);
+            int[] path = solver.solve(grid, grid.index(startPoint), grid.index(endPoint));
+            if (path == null || !PathVerifier.verify(grid, CompactPath.fromCells(grid, path), startPoint, endPoint)){
+                failures.incrementAndGet();
+            }
+            latencies[i] = System.nanoTime() - mazeStarted;
+        });
+        return new Result(System.nanoTime() - started, latencies, failures.get());
+    }
+
+    public static final class Result {
+        private final long wallNanos;
+        private final long[] latencies; // sorted ascending
+        private final int failures;
+
+        private Result(long wallNanos, long[] latencies, int failures){
+            this.wallNanos = wallNanos;
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.failures = failures;
+        }
+
+        public int getMazes() {
+            return latencies.length;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public double mazesPerSecond(){
+            return latencies.length * 1e9 / wallNanos;
+        }
+
+        /**
+         * @param percent between 0 and 100
+         * @return the latency in nanoseconds that percent of the mazes did not exceed (nearest rank)
+         */
+        public long percentile(double percent){
+            if (latencies.length == 0){
+                return 0;
+            }
+            int rank = (int) Math.ceil(percent / 100 * latencies.length);
+            return latencies[Math.max(0, Math.min(latencies.length - 1, rank - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d mazes in %d ms, %.1f mazes/s, latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms, %d failed",
+                    getMazes(), wallNanos / 1_000_000, mazesPerSecond(),
+                    percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6, percentile(100) / 1e6, failures);
+        }
+    }
+}
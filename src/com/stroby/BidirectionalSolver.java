@@ -0,0 +1,145 @@
+package com.stroby;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Two threads search at the same time, one from start and one from end. Every cell
+ * is owned by the side that reached it first (compare and set in a shared byte per
+ * cell), and as soon as one side finds a passage into a cell owned by the other side
+ * the two searches have met. In a perfect maze that passage lies on the solution, so
+ * the path is the start side's links back to start followed by the end side's links
+ * back to end.
+ */
+public final class BidirectionalSolver {
+
+    private static final VarHandle OWNER = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final byte FREE = 0;
+    private static final byte FROM_START = 1;
+    private static final byte FROM_END = 2;
+
+    private final MazeGrid grid;
+    private final byte[] owner;
+    private final int[] parent;
+
+    private final AtomicBoolean met = new AtomicBoolean();
+    // the passage where the searches met: the cell on the start side and the cell on the end side
+    private volatile int meetStart = -1;
+    private volatile int meetEnd = -1;
+
+    private BidirectionalSolver(MazeGrid grid){
+        this.grid = grid;
+        this.owner = new byte[grid.size()];
+        this.parent = new int[grid.size()];
+    }
+
+    /**
+     * @return the path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end){
+        return solve(grid, start, end, null);
+    }
+
+    /**
+     * @param metrics receives the ThreadStats of both threads, may be null
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, SolverMetrics metrics){
+        if (start == end){
+            return new int[]{start};
+        }
+        return new BidirectionalSolver(grid).run(start, end, metrics);
+    }
+
+    private int[] run(int start, int end, SolverMetrics metrics){
+        owner[start] = FROM_START;
+        owner[end] = FROM_END;
+        parent[start] = start;
+        parent[end] = end;
+
+        ThreadStats startStats = metrics == null ? null : metrics.thread("Bidirectional", "from start");
+        ThreadStats endStats = metrics == null ? null : metrics.thread("Bidirectional", "from end");
+        Thread fromStart = new Thread(() -> search(start, FROM_START, startStats), "bidirectional-start");
+        Thread fromEnd = new Thread(() -> search(end, FROM_END, endStats), "bidirectional-end");
+        fromStart.start();
+        fromEnd.start();
+        try {
+            fromStart.join();
+            fromEnd.join();
+        } catch (InterruptedException e) {
+            met.set(true); // stops both searches
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (meetStart < 0){
+            return null;
+        }
+
+        int startHalf = 1;
+        for (int c = meetStart; c != start; c = parent[c]){
+            startHalf++;
+        }
+        int endHalf = 1;
+        for (int c = meetEnd; c != end; c = parent[c]){
+            endHalf++;
+        }
+        int[] path = new int[startHalf + endHalf];
+        for (int i = startHalf - 1, c = meetStart; i >= 0; i--, c = parent[c]){
+            path[i] = c;
+        }
+        for (int i = startHalf, c = meetEnd; i < path.length; i++, c = parent[c]){
+            path[i] = c;
+        }
+        return path;
+    }
+
+    private void search(int origin, byte side, ThreadStats stats){
+        long visited = 1;
+        long backtracks = 0;
+        int peakDepth = 1;
+
+        int[] stack = new int[64];
+        stack[0] = origin;
+        int size = 1;
+        while (size > 0 && !met.get()){
+            int current = stack[--size];
+            int neighbors = grid.neighborCount(current);
+            int claims = 0;
+            for (int k = 0; k < neighbors; k++){
+                int neighbor = grid.neighborAt(current, k);
+                byte previousOwner = (byte) OWNER.compareAndExchange(owner, neighbor, FREE, side);
+                if (previousOwner == FREE){
+                    parent[neighbor] = current;
+                    if (size == stack.length){
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[size++] = neighbor;
+                    claims++;
+                } else if (previousOwner != side){
+                    meet(side == FROM_START ? current : neighbor, side == FROM_START ? neighbor : current);
+                    if (stats != null){
+                        stats.record(visited + claims, backtracks, peakDepth);
+                    }
+                    return;
+                }
+            }
+            visited += claims;
+            if (claims == 0){
+                backtracks++;
+            }
+            peakDepth = Math.max(peakDepth, size);
+        }
+
+        if (stats != null){
+            stats.record(visited, backtracks, peakDepth);
+        }
+    }
+
+    private void meet(int startSide, int endSide){
+        if (met.compareAndSet(false, true)){
+            meetStart = startSide;
+            meetEnd = endSide;
+        }
+    }
+}
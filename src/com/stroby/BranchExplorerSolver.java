@@ -0,0 +1,224 @@
+package com.stroby;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Depth first search that starts a new thread for every branch it finds at a junction,
+ * as long as fewer than maxBranches branches are running; otherwise the branch is kept on
+ * the stack of the thread that found it. Cells are claimed in a shared AtomicBitSet like in
+ * CooperativeSolver, so no cell is explored twice. The first branch that reaches end shuts
+ * down the scope (the executor all branches run on) and interrupts the others.
+ *
+ * Branches are meant to run on virtual threads, which makes thousands of them cheap. The
+ * project targets Java 17, where virtual threads do not exist yet, so the executor is looked
+ * up by reflection and the solver falls back to a cached pool of platform threads.
+ */
+public final class BranchExplorerSolver {
+
+    public static final int DEFAULT_MAX_BRANCHES = 256;
+    private static final Method VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    private final MazeGrid grid;
+    private final int end;
+    private final AtomicBitSet claimed;
+    private final int[] parent;
+
+    private final Semaphore permits;
+    private final AtomicInteger running = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean found;
+    private ExecutorService scope;
+    private final ThreadStats stats; // shared by all branches, null if not measured
+
+    private BranchExplorerSolver(MazeGrid grid, int end, int maxBranches, SolverMetrics metrics){
+        this.grid = grid;
+        this.end = end;
+        this.stats = metrics == null ? null : metrics.thread("Branch Explorer", "branches");
+        this.claimed = new AtomicBitSet(grid.size());
+        this.parent = new int[grid.size()];
+        this.permits = new Semaphore(maxBranches);
+    }
+
+    public static int[] solve(MazeGrid grid, int start, int end){
+        return solve(grid, start, end, DEFAULT_MAX_BRANCHES);
+    }
+
+    /**
+     * @param maxBranches the maximum number of branches explored at the same time
+     * @return the path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int maxBranches){
+        return solve(grid, start, end, maxBranches, null);
+    }
+
+    /**
+     * @param metrics receives one ThreadStats for all branches together, may be null
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int maxBranches, SolverMetrics metrics){
+        if (maxBranches < 1){
+            throw new IllegalArgumentException("maxBranches must be at least 1, but is " + maxBranches);
+        }
+        BranchExplorerSolver solver = new BranchExplorerSolver(grid, end, maxBranches, metrics);
+        return solver.run(start) ? solver.pathTo(end) : null;
+    }
+
+    /**
+     * Same as solve, but reads the path straight out of the parent links into a CompactPath.
+     */
+    public static CompactPath solveCompact(MazeGrid grid, int start, int end, SolverMetrics metrics){
+        BranchExplorerSolver solver = new BranchExplorerSolver(grid, end, DEFAULT_MAX_BRANCHES, metrics);
+        return solver.run(start) ? CompactPath.fromParents(grid, solver.parent, start, end) : null;
+    }
+
+    /**
+     * @return true if branches run on virtual threads, false if they fall back to platform threads
+     */
+    public static boolean virtualThreadsAvailable(){
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    private static Method findVirtualExecutor(){
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // preview builds throw here unless started with --enable-preview
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newScope(){
+        if (VIRTUAL_EXECUTOR != null){
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Could not create a virtual thread executor", e);
+            }
+        }
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "branch-explorer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true if end was reached
+     */
+    private boolean run(int start){
+        claimed.claim(start);
+        parent[start] = start;
+        if (start == end){
+            return true;
+        }
+
+        scope = newScope();
+        try {
+            permits.acquireUninterruptibly();
+            fork(start);
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            scope.shutdownNow();
+        }
+        return found;
+    }
+
+    /**
+     * Starts a branch at cell, the caller must hold a permit for it.
+     */
+    private void fork(int cell){
+        running.incrementAndGet();
+        try {
+            scope.execute(() -> explore(cell));
+        } catch (RejectedExecutionException e) {
+            // the scope is shut down because end was found
+            done();
+        }
+    }
+
+    private void done(){
+        permits.release();
+        if (running.decrementAndGet() == 0){
+            finished.countDown();
+        }
+    }
+
+    private void explore(int branch){
+        long visited = 0;
+        long backtracks = 0;
+        int peakDepth = 1;
+        long forks = 0;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = branch;
+        try {
+            while (top > 0 && !found){
+                int current = stack[--top];
+                int neighbors = grid.neighborCount(current);
+                boolean continued = false;
+                int claims = 0;
+                for (int k = 0; k < neighbors; k++){
+                    int neighbor = grid.neighborAt(current, k);
+                    if (!claimed.claim(neighbor)){
+                        continue;
+                    }
+                    parent[neighbor] = current;
+                    claims++;
+                    if (neighbor == end){
+                        found = true;
+                        finished.countDown();
+                        return;
+                    }
+                    // this thread follows the first branch itself, the others get their own thread if allowed
+                    if (continued && permits.tryAcquire()){
+                        fork(neighbor);
+                        forks++;
+                        continue;
+                    }
+                    if (top == stack.length){
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = neighbor;
+                    continued = true;
+                }
+                visited += claims;
+                if (claims == 0){
+                    backtracks++;
+                }
+                peakDepth = Math.max(peakDepth, top);
+            }
+        } finally {
+            if (stats != null){
+                stats.record(visited, backtracks, peakDepth);
+                stats.recordSharing(forks, 0);
+            }
+            done();
+        }
+    }
+
+    private int[] pathTo(int cell){
+        int length = 1;
+        for (int c = cell; parent[c] != c; c = parent[c]){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1; i >= 0; i--){
+            path[i] = cell;
+            cell = parent[cell];
+        }
+        return path;
+    }
+}
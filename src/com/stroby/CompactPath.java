@@ -0,0 +1,228 @@
+package com.stroby;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A path stored as its first cell plus 2 bits per step (the Direction ordinal of the step),
+ * 32 steps per long. That is 16 times smaller than an int[] of cell indices and does not
+ * depend on the size of the maze, so it also works for mazes only available as a MazeView.
+ */
+public final class CompactPath {
+
+    static final int STEPS_PER_WORD = 32;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int startX;
+    private final int startY;
+    private final long[] steps;
+    private final int length;
+
+    private CompactPath(int startX, int startY, long[] steps, int length){
+        this.startX = startX;
+        this.startY = startY;
+        this.steps = steps;
+        this.length = length;
+    }
+
+    /**
+     * @param cells consecutive cells of a path, as returned by the solvers
+     */
+    public static CompactPath fromCells(MazeGrid grid, int[] cells){
+        Builder builder = new Builder(grid.x(cells[0]), grid.y(cells[0]), cells.length - 1);
+        for (int i = 1; i < cells.length; i++){
+            int dir = grid.directionTo(cells[i - 1], cells[i]);
+            if (dir < 0){
+                throw new IllegalArgumentException(grid.point(cells[i - 1]) + " and " + grid.point(cells[i]) + " are not adjacent");
+            }
+            builder.add(dir);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the path back from end to start through the parent links a search left behind,
+     * without building the cells of the path first.
+     * @param parent the cell every reached cell was reached from, parent[start] == start
+     */
+    public static CompactPath fromParents(MazeGrid grid, int[] parent, int start, int end){
+        int length = 0;
+        for (int cell = end; cell != start; cell = parent[cell]){
+            length++;
+        }
+        long[] steps = new long[(length + STEPS_PER_WORD - 1) / STEPS_PER_WORD];
+        int i = length;
+        for (int cell = end; cell != start; cell = parent[cell]){
+            i--;
+            int dir = grid.directionTo(parent[cell], cell);
+            if (dir < 0){
+                throw new IllegalArgumentException(grid.point(parent[cell]) + " and " + grid.point(cell) + " are not adjacent");
+            }
+            steps[i / STEPS_PER_WORD] |= (long) dir << ((i % STEPS_PER_WORD) * 2);
+        }
+        return new CompactPath(grid.x(start), grid.y(start), steps, length);
+    }
+
+    public int getStartX() {
+        return startX;
+    }
+
+    public int getStartY() {
+        return startY;
+    }
+
+    /**
+     * @return the number of steps, one less than the number of cells on the path
+     */
+    public int length(){
+        return length;
+    }
+
+    /**
+     * @return the Direction ordinal of step i
+     */
+    public int direction(int i){
+        return direction(steps, i);
+    }
+
+    static int direction(long[] steps, int i){
+        return (int) (steps[i / STEPS_PER_WORD] >>> ((i % STEPS_PER_WORD) * 2)) & 3;
+    }
+
+    long[] words(){
+        return steps;
+    }
+
+    public Cursor cursor(){
+        return new Cursor();
+    }
+
+    public int[] toCells(MazeGrid grid){
+        int[] cells = new int[length + 1];
+        Cursor cursor = cursor();
+        cells[0] = grid.index(cursor.x(), cursor.y());
+        for (int i = 1; i <= length; i++){
+            cursor.next();
+            cells[i] = grid.index(cursor.x(), cursor.y());
+        }
+        return cells;
+    }
+
+    public Point[] toPoints(){
+        Point[] points = new Point[length + 1];
+        Cursor cursor = cursor();
+        points[0] = new Point(cursor.x(), cursor.y());
+        for (int i = 1; i <= length; i++){
+            cursor.next();
+            points[i] = new Point(cursor.x(), cursor.y());
+        }
+        return points;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(startX);
+        out.writeInt(startY);
+        out.writeInt(length);
+        for (int i = 0; i < (length + STEPS_PER_WORD - 1) / STEPS_PER_WORD; i++){
+            out.writeLong(steps[i]);
+        }
+    }
+
+    public static CompactPath readFrom(DataInput in) throws IOException {
+        int startX = in.readInt();
+        int startY = in.readInt();
+        int length = in.readInt();
+        long[] steps = new long[(length + STEPS_PER_WORD - 1) / STEPS_PER_WORD];
+        for (int i = 0; i < steps.length; i++){
+            steps[i] = in.readLong();
+        }
+        return new CompactPath(startX, startY, steps, length);
+    }
+
+    /**
+     * Walks the cells of the path without allocating anything per step. Starts on the first cell.
+     */
+    public final class Cursor {
+        private int x = startX;
+        private int y = startY;
+        private int step;
+
+        private Cursor() {}
+
+        public boolean hasNext(){
+            return step < length;
+        }
+
+        /**
+         * Moves to the next cell.
+         * @return the Direction ordinal of the step taken
+         */
+        public int next(){
+            int dir = direction(step++);
+            Direction d = DIRECTIONS[dir];
+            x += d.dx;
+            y += d.dy;
+            return dir;
+        }
+
+        public int x(){
+            return x;
+        }
+
+        public int y(){
+            return y;
+        }
+    }
+
+    /**
+     * Collects a path step by step. Steps can be taken back again, which lets depth first
+     * solvers keep their current path directly in compact form.
+     */
+    public static final class Builder {
+        private final int startX;
+        private final int startY;
+        private long[] steps;
+        private int length;
+
+        public Builder(int startX, int startY){
+            this(startX, startY, 1024);
+        }
+
+        public Builder(int startX, int startY, int expectedSteps){
+            this.startX = startX;
+            this.startY = startY;
+            this.steps = new long[Math.max(1, (expectedSteps + STEPS_PER_WORD - 1) / STEPS_PER_WORD)];
+        }
+
+        public void add(int dir){
+            int word = length / STEPS_PER_WORD;
+            if (word == steps.length){
+                steps = Arrays.copyOf(steps, steps.length * 2);
+            }
+            int shift = (length % STEPS_PER_WORD) * 2;
+            steps[word] = (steps[word] & ~(3L << shift)) | ((long) dir << shift);
+            length++;
+        }
+
+        /**
+         * @return the Direction ordinal of the last step, -1 if there is none
+         */
+        public int last(){
+            return length == 0 ? -1 : direction(steps, length - 1);
+        }
+
+        public void removeLast(){
+            length--;
+        }
+
+        public int length(){
+            return length;
+        }
+
+        public CompactPath build(){
+            return new CompactPath(startX, startY, Arrays.copyOf(steps, (length + STEPS_PER_WORD - 1) / STEPS_PER_WORD), length);
+        }
+    }
+}
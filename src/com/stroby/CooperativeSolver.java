@@ -0,0 +1,212 @@
+package com.stroby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi threaded depth first search in which the threads work together instead of
+ * racing each other. Every cell is claimed exactly once in a shared AtomicBitSet, so
+ * a part of the maze explored by one thread is never entered by another. The thread
+ * that claims a cell records where it came from in parent, and the path is read back
+ * from end to start through these links once all threads have stopped.
+ *
+ * Threads run out of work quickly when they only share cells, so a busy thread hands
+ * the oldest branch of its own stack to the shared queue whenever another thread is
+ * waiting for work.
+ */
+public final class CooperativeSolver {
+
+    private final MazeGrid grid;
+    private final int end;
+    private final int threads;
+
+    private final AtomicBitSet claimed;
+    private final int[] parent;
+
+    private final ConcurrentLinkedQueue<Integer> shared = new ConcurrentLinkedQueue<>();
+    // branches in the shared queue plus threads working on a branch, 0 means the maze is exhausted
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger hungry = new AtomicInteger();
+    private volatile boolean done;
+    private final SolverMetrics metrics; // null if not measured
+
+    private CooperativeSolver(MazeGrid grid, int end, int threads, SolverMetrics metrics){
+        this.grid = grid;
+        this.end = end;
+        this.threads = threads;
+        this.metrics = metrics;
+        this.claimed = new AtomicBitSet(grid.size());
+        this.parent = new int[grid.size()];
+    }
+
+    /**
+     * @return the path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads){
+        return solve(grid, start, end, threads, null);
+    }
+
+    /**
+     * @param metrics receives the ThreadStats of every thread, may be null
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads, SolverMetrics metrics){
+        CooperativeSolver solver = new CooperativeSolver(grid, end, threads, metrics);
+        return solver.run(start) ? solver.pathTo(end) : null;
+    }
+
+    /**
+     * Same as solve, but reads the path straight out of the parent links into a CompactPath.
+     */
+    public static CompactPath solveCompact(MazeGrid grid, int start, int end, int threads, SolverMetrics metrics){
+        CooperativeSolver solver = new CooperativeSolver(grid, end, threads, metrics);
+        return solver.run(start) ? CompactPath.fromParents(grid, solver.parent, start, end) : null;
+    }
+
+    /**
+     * @return true if end was reached
+     */
+    private boolean run(int start){
+        claimed.claim(start);
+        parent[start] = start;
+        if (start == end){
+            return true;
+        }
+        pending.incrementAndGet();
+        shared.add(start);
+
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++){
+            int rotation = i;
+            ThreadStats stats = metrics == null ? null : metrics.thread("Cooperative", "worker " + i);
+            workers.add(() -> {
+                work(rotation, stats);
+                return null;
+            });
+        }
+        try {
+            for (var future : es.invokeAll(workers)){
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cooperative solver failed", e.getCause());
+        } finally {
+            es.shutdownNow();
+        }
+        return claimed.get(end);
+    }
+
+    private int[] pathTo(int cell){
+        int length = 1;
+        for (int c = cell; parent[c] != c; c = parent[c]){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1; i >= 0; i--){
+            path[i] = cell;
+            cell = parent[cell];
+        }
+        return path;
+    }
+
+    private void work(int rotation, ThreadStats stats){
+        long visited = 0;
+        long backtracks = 0;
+        int peakDepth = 0;
+        long branchesShared = 0;
+        long idleNanos = 0;
+
+        int[] stack = new int[64];
+        while (!done){
+            Integer branch = shared.poll();
+            if (branch == null){
+                long idleStart = System.nanoTime();
+                boolean more = waitForWork();
+                idleNanos += System.nanoTime() - idleStart;
+                if (!more){
+                    break;
+                }
+                continue;
+            }
+
+            stack[0] = branch;
+            int bottom = 0;
+            int top = 1;
+            while (top > bottom && !done){
+                int current = stack[--top];
+                int neighbors = grid.neighborCount(current);
+                int claims = 0;
+                for (int k = 0; k < neighbors; k++){
+                    // every thread walks the neighbors in a different order to spread out over the maze
+                    int neighbor = grid.neighborAt(current, (k + rotation) % neighbors);
+                    if (!claimed.claim(neighbor)){
+                        continue;
+                    }
+                    parent[neighbor] = current;
+                    claims++;
+                    if (neighbor == end){
+                        done = true;
+                        break;
+                    }
+                    if (top == stack.length){
+                        if (bottom > stack.length / 2){
+                            System.arraycopy(stack, bottom, stack, 0, top - bottom);
+                            top -= bottom;
+                            bottom = 0;
+                        } else {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                    }
+                    stack[top++] = neighbor;
+                }
+                visited += claims;
+                if (claims == 0){
+                    backtracks++;
+                }
+                peakDepth = Math.max(peakDepth, top - bottom);
+
+                if (top - bottom > 1 && hungry.get() > 0){
+                    pending.incrementAndGet();
+                    shared.add(stack[bottom++]);
+                    branchesShared++;
+                }
+            }
+            if (pending.decrementAndGet() == 0){
+                done = true;
+            }
+        }
+
+        if (stats != null){
+            stats.record(visited, backtracks, peakDepth);
+            stats.recordSharing(branchesShared, idleNanos);
+        }
+    }
+
+    /**
+     * @return true once the shared queue may hold work again, false if the search is over
+     */
+    private boolean waitForWork(){
+        hungry.incrementAndGet();
+        try {
+            while (!done && shared.isEmpty()){
+                if (pending.get() == 0){
+                    return false;
+                }
+                Thread.onSpinWait();
+            }
+            return !done;
+        } finally {
+            hungry.decrementAndGet();
+        }
+    }
+}
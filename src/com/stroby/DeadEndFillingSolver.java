@@ -0,0 +1,274 @@
+package com.stroby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dead end filling on bit planes. The passages are split into four planes, one bit per cell
+ * each (north, south, east and west), 64 cells per long. A sweep finds all dead ends at once,
+ * cells with exactly one passage other than start and end, and closes their passage on both
+ * sides, which only takes a few bitwise operations per 64 cells. Sweeps repeat until no dead
+ * end is left; in a perfect maze what is left is exactly the path from start to end, so the
+ * running time does not depend on the order a depth first search happens to try branches in.
+ *
+ * Every row of a plane has a guard word of zeros on both sides and the planes have a guard
+ * row above and below the maze, so the neighbors of every word can be read without bounds
+ * checks. A sweep has two phases separated by a barrier: first the dead mask of every row is
+ * computed, then every row clears its own passages into dead cells, so rows never write to
+ * each other. Rows far away from the last changes are skipped.
+ *
+ * The word kernels use jdk.incubator.vector when the JVM is started with
+ * --add-modules jdk.incubator.vector, and plain long arithmetic otherwise.
+ */
+public final class DeadEndFillingSolver {
+
+    /**
+     * The two phases of a sweep for the words [from, to) of the planes.
+     */
+    interface Kernel {
+        /**
+         * dead[i] = cells with exactly one passage that are not protected.
+         * @return true if any cell is dead
+         */
+        boolean deadMask(long[] north, long[] south, long[] east, long[] west, long[] protect, long[] dead, int from, int to);
+
+        /**
+         * Closes the passages of the cells into dead cells: the row above is dead[i - stride],
+         * the row below dead[i + stride], and the neighbors to the east and west are the
+         * neighboring bits, carried over from dead[i + 1] and dead[i - 1] at the word ends.
+         */
+        void clear(long[] north, long[] south, long[] east, long[] west, long[] dead, int from, int to, int stride);
+    }
+
+    private static final Kernel KERNEL = findKernel();
+
+    private final MazeGrid grid;
+    private final int start;
+    private final int end;
+    private final int threads;
+    private final Kernel kernel;
+
+    private final int stride; // words per row including the two guard words
+    private final long[] north;
+    private final long[] south;
+    private final long[] east;
+    private final long[] west;
+    private final long[] protect;
+    private final long[] dead;
+
+    private DeadEndFillingSolver(MazeGrid grid, int start, int end, int threads, Kernel kernel){
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+        this.threads = Math.max(1, threads);
+        this.kernel = kernel;
+        this.stride = (grid.getWidth() + 63) / 64 + 2;
+        int words = (grid.getHeight() + 2) * stride;
+        this.north = new long[words];
+        this.south = new long[words];
+        this.east = new long[words];
+        this.west = new long[words];
+        this.protect = new long[words];
+        this.dead = new long[words];
+    }
+
+    /**
+     * @return true if the vectorized kernel is used, false if the scalar one is
+     */
+    public static boolean isVectorized(){
+        return !(KERNEL instanceof ScalarKernel);
+    }
+
+    private static Kernel findKernel(){
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()){
+            try {
+                // loaded by name, so this class does not link against the incubator module when it is missing
+                return (Kernel) Class.forName("com.stroby.VectorDeadEndKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall through to the scalar kernel
+            }
+        }
+        return new ScalarKernel();
+    }
+
+    public static int[] solve(MazeGrid grid, int start, int end){
+        return solve(grid, start, end, Parallel.threads());
+    }
+
+    /**
+     * @param grid a perfect maze, in a maze with loops the loops are not filled and null is returned
+     * @return the path from start to end as cell indices, or null if there is no unique path
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads){
+        return new DeadEndFillingSolver(grid, start, end, threads, KERNEL).run();
+    }
+
+    static int[] solve(MazeGrid grid, int start, int end, int threads, boolean vectorized){
+        return new DeadEndFillingSolver(grid, start, end, threads, vectorized ? KERNEL : new ScalarKernel()).run();
+    }
+
+    private int[] run(){
+        split();
+        fill();
+        return walk();
+    }
+
+    private int word(int x, int y){
+        return (y + 1) * stride + 1 + x / 64;
+    }
+
+    private void split(){
+        int width = grid.getWidth();
+        Parallel.forEach(threads, grid.getHeight(), y -> {
+            for (int x = 0; x < width; x++){
+                int passages = grid.passages(x, y);
+                int word = word(x, y);
+                long bit = 1L << x;
+                if ((passages & Direction.N.bit) != 0) north[word] |= bit;
+                if ((passages & Direction.S.bit) != 0) south[word] |= bit;
+                if ((passages & Direction.E.bit) != 0) east[word] |= bit;
+                if ((passages & Direction.W.bit) != 0) west[word] |= bit;
+            }
+        });
+        protect[word(grid.x(start), grid.y(start))] |= 1L << grid.x(start);
+        protect[word(grid.x(end), grid.y(end))] |= 1L << grid.x(end);
+    }
+
+    /**
+     * Sweeps until no dead end is left. Each thread owns a band of rows; the threads meet at
+     * a barrier after each phase. Whether a row had dead cells is kept per sweep, alternating
+     * between two arrays, so the rows to look at next are known without a pass over all rows.
+     */
+    private void fill(){
+        int height = grid.getHeight();
+        int bands = Math.min(threads, height);
+        int rowsPerBand = (height + bands - 1) / bands;
+        boolean[][] changed = {new boolean[height + 2], new boolean[height + 2]};
+        Arrays.fill(changed[1], 1, height + 1, true); // before the first sweep every row counts as changed
+        AtomicBoolean any = new AtomicBoolean();
+        boolean[] finished = new boolean[1];
+        CyclicBarrier afterMask = new CyclicBarrier(bands, () -> finished[0] = !any.getAndSet(false));
+        CyclicBarrier afterClear = new CyclicBarrier(bands);
+
+        ExecutorService es = Executors.newFixedThreadPool(bands);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int b = 0; b < bands; b++){
+            int firstRow = 1 + b * rowsPerBand;
+            int lastRow = Math.min(height, (b + 1) * rowsPerBand);
+            workers.add(() -> {
+                for (int sweep = 0; ; sweep++){
+                    boolean[] previous = changed[(sweep + 1) & 1];
+                    boolean[] current = changed[sweep & 1];
+                    boolean found = false;
+                    for (int row = firstRow; row <= lastRow; row++){
+                        // a row with dead cells always is looked at again, so the dead mask of a skipped row is all zero
+                        current[row] = (previous[row - 1] || previous[row] || previous[row + 1])
+                                && kernel.deadMask(north, south, east, west, protect, dead, row * stride + 1, row * stride + stride - 1);
+                        found |= current[row];
+                    }
+                    if (found){
+                        any.set(true);
+                    }
+                    afterMask.await();
+                    if (finished[0]){
+                        return null;
+                    }
+                    for (int row = firstRow; row <= lastRow; row++){
+                        if (current[row - 1] || current[row] || current[row + 1]){
+                            kernel.clear(north, south, east, west, dead, row * stride + 1, row * stride + stride - 1, stride);
+                        }
+                    }
+                    afterClear.await();
+                }
+            });
+        }
+        try {
+            for (var future : es.invokeAll(workers)){
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while filling dead ends", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Dead end filling failed", e.getCause());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    /**
+     * Follows the passages left from start. In a perfect maze every cell on the way has
+     * exactly two of them, one back and one forward.
+     */
+    private int[] walk(){
+        long[][] planes = {north, south, east, west}; // by Direction ordinal
+        int[] path = new int[1024];
+        int length = 0;
+        int previous = -1;
+        int cell = start;
+        while (true){
+            if (length == path.length){
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = cell;
+            if (cell == end){
+                return Arrays.copyOf(path, length);
+            }
+            int x = grid.x(cell);
+            int y = grid.y(cell);
+            int word = word(x, y);
+            long bit = 1L << x;
+            int next = -1;
+            int options = 0;
+            for (int dir = 0; dir < planes.length; dir++){
+                if ((planes[dir][word] & bit) != 0){
+                    int neighbor = grid.neighbor(cell, dir);
+                    if (neighbor != previous){
+                        next = neighbor;
+                        options++;
+                    }
+                }
+            }
+            if (options != 1){
+                // a loop survived the filling, or end is not reachable
+                return null;
+            }
+            previous = cell;
+            cell = next;
+        }
+    }
+
+    static final class ScalarKernel implements Kernel {
+
+        @Override
+        public boolean deadMask(long[] north, long[] south, long[] east, long[] west, long[] protect, long[] dead, int from, int to) {
+            long any = 0;
+            for (int i = from; i < to; i++){
+                long n = north[i], s = south[i], e = east[i], w = west[i];
+                long twoOrMore = (n & s) | (n & e) | (n & w) | (s & e) | (s & w) | (e & w);
+                long d = (n | s | e | w) & ~twoOrMore & ~protect[i];
+                dead[i] = d;
+                any |= d;
+            }
+            return any != 0;
+        }
+
+        @Override
+        public void clear(long[] north, long[] south, long[] east, long[] west, long[] dead, int from, int to, int stride) {
+            for (int i = from; i < to; i++){
+                long d = dead[i];
+                north[i] &= ~(d | dead[i - stride]);
+                south[i] &= ~(d | dead[i + stride]);
+                east[i] &= ~(d | (dead[i] >>> 1) | (dead[i + 1] << 63));
+                west[i] &= ~(d | (dead[i] << 1) | (dead[i - 1] >>> 63));
+            }
+        }
+    }
+}
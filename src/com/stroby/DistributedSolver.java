@@ -0,0 +1,345 @@
+package com.stroby;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a maze file with several worker processes, so the work and the memory of a maze too
+ * large for one JVM are spread over processes (started on this host here, but they only need
+ * the file and a socket). The maze is cut into horizontal bands of rows, and every band is
+ * owned by one BandWorker process that maps the file, labels the parts of its band that are
+ * connected inside of it, and sends the labels of its border cells to this coordinator over a
+ * loopback TCP connection.
+ *
+ * The coordinator only sees the components and the passages between neighboring bands, a
+ * graph with at most a few nodes per border cell. A breadth first search there gives the
+ * components the path runs through and where it crosses from band to band, and every worker
+ * then sends the cells of the path through its components. In a maze with loops the path is
+ * a valid one, but not necessarily the shortest.
+ */
+public final class DistributedSolver {
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final int height;
+    private final Point start;
+    private final Point end;
+    private final int bands;
+    private final int rowsPerBand;
+
+    // per band, from the labels its worker sent; node of a component = first[band] + label
+    private final int[] first;
+    private final int[][] topLabels;
+    private final int[][] bottomLabels;
+    private int startLabel = -1;
+    private int endLabel = -1;
+
+    private DistributedSolver(int height, Point start, Point end, int workers){
+        this.height = height;
+        this.start = start;
+        this.end = end;
+        this.rowsPerBand = (height + workers - 1) / workers;
+        this.bands = (height + rowsPerBand - 1) / rowsPerBand;
+        this.first = new int[bands + 1];
+        this.topLabels = new int[bands][];
+        this.bottomLabels = new int[bands][];
+    }
+
+    /**
+     * Writes the maze to a temporary maze file and solves that.
+     */
+    public static Point[] solve(SequentialMaze maze, int workers) throws IOException {
+        Path file = Files.createTempFile("maze", ".bin");
+        try {
+            MazeFile.write(file, maze);
+            return solve(file, workers);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * @param workers number of worker processes, each owning one band of rows
+     * @return the path from start to end, or null if end can not be reached
+     */
+    public static Point[] solve(Path mazeFile, int workers) throws IOException {
+        DistributedSolver solver;
+        try (MappedMaze maze = MappedMaze.open(mazeFile)){
+            solver = new DistributedSolver(maze.getHeight(), maze.getStart(), maze.getEnd(),
+                    Math.max(1, Math.min(workers, maze.getHeight())));
+        }
+        return solver.run(mazeFile.toAbsolutePath());
+    }
+
+    private Point[] run(Path mazeFile) throws IOException {
+        List<Process> processes = new ArrayList<>();
+        Socket[] sockets = new Socket[bands];
+        try (ServerSocket server = new ServerSocket(0, bands, InetAddress.getLoopbackAddress())){
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            for (int b = 0; b < bands; b++){
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), BandWorker.class.getName(),
+                        Integer.toString(server.getLocalPort()), Integer.toString(b), Integer.toString(top(b)),
+                        Integer.toString(top(b + 1) - top(b)), mazeFile.toString())
+                        .inheritIO()
+                        .start());
+            }
+
+            DataInputStream[] in = new DataInputStream[bands];
+            DataOutputStream[] out = new DataOutputStream[bands];
+            accept(server, processes, sockets, in, out);
+            for (int b = 0; b < bands; b++){
+                readLabels(b, in[b]);
+            }
+            for (int b = 0; b < bands; b++){
+                first[b + 1] += first[b];
+            }
+
+            // the requests of all workers are sent before any answer is read, so every worker can answer right away
+            List<Segment> segments = findSegments();
+            List<List<Segment>> perBand = new ArrayList<>();
+            for (int b = 0; b < bands; b++){
+                perBand.add(new ArrayList<>());
+            }
+            if (segments != null){
+                for (Segment segment : segments){
+                    perBand.get(segment.band).add(segment);
+                }
+            }
+            for (int b = 0; b < bands; b++){
+                out[b].writeInt(perBand.get(b).size());
+                for (Segment segment : perBand.get(b)){
+                    out[b].writeInt(segment.from.getX());
+                    out[b].writeInt(segment.from.getY());
+                    out[b].writeInt(segment.to.getX());
+                    out[b].writeInt(segment.to.getY());
+                }
+                out[b].flush();
+            }
+            return segments == null ? null : collectPath(segments, in);
+        } finally {
+            for (Socket socket : sockets){
+                if (socket != null){
+                    socket.close();
+                }
+            }
+            for (Process process : processes){
+                try {
+                    if (!process.waitFor(10, TimeUnit.SECONDS)){
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the first row of the band, or height for the band after the last one
+     */
+    private int top(int band){
+        return (int) Math.min(height, (long) band * rowsPerBand);
+    }
+
+    private int bandOf(int y){
+        return y / rowsPerBand;
+    }
+
+    /**
+     * Accepts a connection from every worker, which first sends the index of its band.
+     */
+    private void accept(ServerSocket server, List<Process> processes, Socket[] sockets,
+                        DataInputStream[] in, DataOutputStream[] out) throws IOException {
+        server.setSoTimeout(1000);
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        for (int connected = 0; connected < bands; ){
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                for (Process process : processes){
+                    if (!process.isAlive() && process.exitValue() != 0){
+                        throw new IOException("A worker exited with " + process.exitValue() + " before connecting");
+                    }
+                }
+                if (System.currentTimeMillis() > deadline){
+                    throw new IOException("Only " + connected + " of " + bands + " workers connected");
+                }
+                continue;
+            }
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            int band = input.readInt();
+            if (band < 0 || band >= bands || sockets[band] != null){
+                socket.close();
+                throw new IOException("Unexpected worker for band " + band);
+            }
+            sockets[band] = socket;
+            in[band] = input;
+            out[band] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            connected++;
+        }
+    }
+
+    private void readLabels(int band, DataInputStream in) throws IOException {
+        int width = in.readInt();
+        first[band + 1] = in.readInt();
+        topLabels[band] = new int[width];
+        bottomLabels[band] = new int[width];
+        for (int x = 0; x < width; x++){
+            topLabels[band][x] = in.readInt();
+        }
+        for (int x = 0; x < width; x++){
+            bottomLabels[band][x] = in.readInt();
+        }
+        int startInBand = in.readInt();
+        int endInBand = in.readInt();
+        if (startInBand >= 0){
+            startLabel = startInBand;
+        }
+        if (endInBand >= 0){
+            endLabel = endInBand;
+        }
+    }
+
+    /**
+     * Breadth first search over the components of all bands, connected where a passage
+     * crosses from the bottom row of one band to the top row of the next.
+     * @return the segments of the path through the components, from start to end, or null
+     * if end can not be reached
+     */
+    private List<Segment> findSegments(){
+        int nodes = first[bands];
+        int[] nodeBand = new int[nodes];
+        for (int b = 0; b < bands; b++){
+            Arrays.fill(nodeBand, first[b], first[b + 1], b);
+        }
+        int source = first[bandOf(start.getY())] + startLabel;
+        int target = first[bandOf(end.getY())] + endLabel;
+
+        // edges as adjacency arrays, the crossing between band b and b + 1 at x connects a
+        // component in the bottom row of b with one in the top row of b + 1
+        int[] offset = new int[nodes + 1];
+        for (int b = 0; b + 1 < bands; b++){
+            for (int x = 0; x < bottomLabels[b].length; x++){
+                if (bottomLabels[b][x] >= 0){
+                    offset[first[b] + bottomLabels[b][x] + 1]++;
+                    offset[first[b + 1] + topLabels[b + 1][x] + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < nodes; i++){
+            offset[i + 1] += offset[i];
+        }
+        int[] fill = Arrays.copyOf(offset, nodes);
+        int[] neighbor = new int[offset[nodes]];
+        int[] crossingX = new int[offset[nodes]];
+        for (int b = 0; b + 1 < bands; b++){
+            for (int x = 0; x < bottomLabels[b].length; x++){
+                if (bottomLabels[b][x] >= 0){
+                    int upper = first[b] + bottomLabels[b][x];
+                    int lower = first[b + 1] + topLabels[b + 1][x];
+                    crossingX[fill[upper]] = x;
+                    neighbor[fill[upper]++] = lower;
+                    crossingX[fill[lower]] = x;
+                    neighbor[fill[lower]++] = upper;
+                }
+            }
+        }
+
+        int[] parent = new int[nodes];
+        int[] parentX = new int[nodes]; // x of the crossing from the parent
+        Arrays.fill(parent, -1);
+        int[] queue = new int[nodes];
+        parent[source] = source;
+        queue[0] = source;
+        int tail = 1;
+        for (int head = 0; head < tail && parent[target] < 0; head++){
+            int node = queue[head];
+            for (int e = offset[node]; e < offset[node + 1]; e++){
+                if (parent[neighbor[e]] < 0){
+                    parent[neighbor[e]] = node;
+                    parentX[neighbor[e]] = crossingX[e];
+                    queue[tail++] = neighbor[e];
+                }
+            }
+        }
+        if (parent[target] < 0){
+            return null;
+        }
+
+        int length = 1;
+        for (int node = target; node != source; node = parent[node]){
+            length++;
+        }
+        int[] chain = new int[length];
+        for (int i = length - 1, node = target; i >= 0; i--, node = parent[node]){
+            chain[i] = node;
+        }
+        List<Segment> segments = new ArrayList<>(length);
+        for (int i = 0; i < length; i++){
+            int band = nodeBand[chain[i]];
+            Point from = i == 0 ? start : borderCell(band, nodeBand[chain[i - 1]], parentX[chain[i]]);
+            Point to = i == length - 1 ? end : borderCell(band, nodeBand[chain[i + 1]], parentX[chain[i + 1]]);
+            segments.add(new Segment(band, from, to));
+        }
+        return segments;
+    }
+
+    /**
+     * @return the cell at x in the row of the band next to the other band
+     */
+    private Point borderCell(int band, int other, int x){
+        return new Point(x, other > band ? top(band + 1) - 1 : top(band));
+    }
+
+    /**
+     * Reads the cells of every segment from the worker of its band, in path order.
+     */
+    private Point[] collectPath(List<Segment> segments, DataInputStream[] in) throws IOException {
+        List<Point[]> parts = new ArrayList<>(segments.size());
+        int length = 0;
+        for (Segment segment : segments){
+            DataInputStream input = in[segment.band];
+            Point[] part = new Point[input.readInt()];
+            for (int i = 0; i < part.length; i++){
+                part[i] = new Point(input.readInt(), input.readInt());
+            }
+            parts.add(part);
+            length += part.length;
+        }
+        Point[] path = new Point[length];
+        int next = 0;
+        for (Point[] part : parts){
+            System.arraycopy(part, 0, path, next, part.length);
+            next += part.length;
+        }
+        return path;
+    }
+
+    private static final class Segment {
+
+        private final int band;
+        private final Point from;
+        private final Point to;
+
+        Segment(int band, Point from, Point to){
+            this.band = band;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
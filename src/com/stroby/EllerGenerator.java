@@ -0,0 +1,145 @@
+package com.stroby;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a perfect maze row by row with Eller's algorithm
+ * (www.astrolog.org/labyrnth/algrithm.htm), keeping only the current row in memory, so the
+ * maze can have any number of rows. Every cell of a row belongs to a set of cells connected
+ * through the rows above. Neighbors in different sets are joined at random, which merges
+ * their sets, and every set continues downwards through at least one cell, so no part of the
+ * maze is cut off. In the last row all remaining sets are joined.
+ *
+ * The rows only depend on the width and the seed, not on the height, except for the last.
+ */
+public final class EllerGenerator {
+
+    private final int width;
+    private final SplittableRandom random;
+
+    // set of every cell of the current row; ids below width after normalize, fresh ones from width on
+    private int[] set;
+    private final int[] parent; // union find over set ids
+    private final int[] rename;
+    private final int[] count; // cells of the set seen so far in the current row
+    private final int[] pick; // cell of the set chosen to continue downwards if none does at random
+    private final boolean[] goesDown;
+    private boolean[] down; // the cells of the previous row with a passage to the south
+
+    public EllerGenerator(int width, long seed){
+        if (width < 1){
+            throw new IllegalArgumentException("width must be at least 1, but is " + width);
+        }
+        this.width = width;
+        this.random = new SplittableRandom(seed);
+        this.set = new int[width];
+        this.parent = new int[2 * width];
+        this.rename = new int[2 * width];
+        this.count = new int[2 * width];
+        this.pick = new int[2 * width];
+        this.goesDown = new boolean[2 * width];
+        this.down = new boolean[width];
+    }
+
+    /**
+     * Sends height rows to the sink, each in a new array.
+     */
+    public void generate(long height, RowSink sink) throws IOException {
+        for (long y = 0; y < height; y++){
+            sink.row(nextRow(y == height - 1));
+        }
+    }
+
+    /**
+     * @param last joins all sets and leaves no passage to the south
+     */
+    int[] nextRow(boolean last){
+        int[] passages = new int[width];
+        int fresh = width;
+        for (int x = 0; x < width; x++){
+            if (down[x]){
+                passages[x] |= Direction.N.bit;
+            } else {
+                set[x] = fresh++;
+            }
+        }
+        for (int id = 0; id < 2 * width; id++){
+            parent[id] = id;
+        }
+
+        // join neighbors of different sets
+        for (int x = 0; x + 1 < width; x++){
+            int a = find(set[x]);
+            int b = find(set[x + 1]);
+            if (a != b && (last || random.nextBoolean())){
+                parent[b] = a;
+                passages[x] |= Direction.E.bit;
+                passages[x + 1] |= Direction.W.bit;
+            }
+        }
+        for (int x = 0; x < width; x++){
+            set[x] = find(set[x]);
+        }
+        if (last){
+            return passages;
+        }
+
+        // continue downwards at random, and through one random cell of every set that did not
+        for (int x = 0; x < width; x++){
+            int s = set[x];
+            count[s] = 0;
+            goesDown[s] = false;
+        }
+        for (int x = 0; x < width; x++){
+            int s = set[x];
+            count[s]++;
+            if (random.nextInt(count[s]) == 0){
+                pick[s] = x;
+            }
+            down[x] = random.nextBoolean();
+            goesDown[s] |= down[x];
+        }
+        for (int x = 0; x < width; x++){
+            int s = set[x];
+            if (!goesDown[s]){
+                down[pick[s]] = true;
+                goesDown[s] = true;
+            }
+        }
+        for (int x = 0; x < width; x++){
+            if (down[x]){
+                passages[x] |= Direction.S.bit;
+            }
+        }
+        normalize();
+        return passages;
+    }
+
+    private int find(int id){
+        while (parent[id] != id){
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Renames the sets of the cells going down to ids below width, so the next row can hand
+     * out fresh ids from width on.
+     */
+    private void normalize(){
+        for (int x = 0; x < width; x++){
+            rename[set[x]] = -1;
+        }
+        int next = 0;
+        for (int x = 0; x < width; x++){
+            if (down[x]){
+                if (rename[set[x]] < 0){
+                    rename[set[x]] = next++;
+                }
+                set[x] = rename[set[x]];
+            }
+        }
+    }
+}
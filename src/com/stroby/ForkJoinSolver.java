@@ -0,0 +1,167 @@
+package com.stroby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Depth first search on a ForkJoinPool. Each task explores its branch on its own,
+ * and at a junction (a cell with more than two passages) it forks the other ways out
+ * as new tasks once it has explored at least granularity cells since its last fork.
+ * Idle workers steal these branches, and once the end is found every task that has
+ * not started yet is cancelled and the running ones stop at their next cell.
+ */
+public final class ForkJoinSolver {
+
+    public static final int DEFAULT_GRANULARITY = 1024;
+
+    private final MazeGrid grid;
+    private final int end;
+    private final int granularity;
+
+    private final AtomicBitSet claimed;
+    private final int[] parent;
+    private volatile boolean found;
+    private final ThreadStats stats; // shared by all branch tasks, null if not measured
+
+    private ForkJoinSolver(MazeGrid grid, int end, int granularity, SolverMetrics metrics){
+        this.grid = grid;
+        this.end = end;
+        this.granularity = granularity;
+        this.stats = metrics == null ? null : metrics.thread("Fork Join", "branches");
+        this.claimed = new AtomicBitSet(grid.size());
+        this.parent = new int[grid.size()];
+    }
+
+    public static int[] solve(MazeGrid grid, int start, int end, int threads){
+        return solve(grid, start, end, threads, DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * @return the path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads, int granularity){
+        return solve(grid, start, end, threads, granularity, null);
+    }
+
+    /**
+     * @param metrics receives one ThreadStats for all branches together, may be null
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads, int granularity, SolverMetrics metrics){
+        ForkJoinSolver solver = new ForkJoinSolver(grid, end, granularity, metrics);
+        if (!solver.run(start, threads)){
+            return null;
+        }
+
+        int length = 1;
+        for (int c = end; c != start; c = solver.parent[c]){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1, c = end; i >= 0; i--, c = solver.parent[c]){
+            path[i] = c;
+        }
+        return path;
+    }
+
+    /**
+     * Same as solve, but reads the path straight out of the parent links into a CompactPath.
+     */
+    public static CompactPath solveCompact(MazeGrid grid, int start, int end, int threads, SolverMetrics metrics){
+        ForkJoinSolver solver = new ForkJoinSolver(grid, end, DEFAULT_GRANULARITY, metrics);
+        return solver.run(start, threads) ? CompactPath.fromParents(grid, solver.parent, start, end) : null;
+    }
+
+    /**
+     * @return true if end was reached
+     */
+    private boolean run(int start, int threads){
+        claimed.claim(start);
+        parent[start] = start;
+        if (start == end){
+            return true;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Branch(start));
+        } finally {
+            pool.shutdownNow();
+        }
+        return found;
+    }
+
+    @SuppressWarnings("serial")
+    private final class Branch extends RecursiveAction {
+        private final int first;
+
+        Branch(int first) {
+            this.first = first;
+        }
+
+        @Override
+        protected void compute() {
+            List<Branch> forked = new ArrayList<>();
+            int[] stack = new int[64];
+            stack[0] = first;
+            int size = 1;
+            int sinceFork = 0;
+            long visited = 0;
+            long backtracks = 0;
+            int peakDepth = 1;
+
+            while (size > 0 && !found){
+                int current = stack[--size];
+                sinceFork++;
+
+                int neighbors = grid.neighborCount(current);
+                boolean split = neighbors > 2 && sinceFork >= granularity;
+                boolean kept = false;
+                int claims = 0;
+                for (int k = 0; k < neighbors; k++){
+                    int neighbor = grid.neighborAt(current, k);
+                    if (!claimed.claim(neighbor)){
+                        continue;
+                    }
+                    parent[neighbor] = current;
+                    claims++;
+                    if (neighbor == end){
+                        found = true;
+                        break;
+                    }
+                    if (split && kept){
+                        Branch branch = new Branch(neighbor);
+                        branch.fork();
+                        forked.add(branch);
+                        sinceFork = 0;
+                    } else {
+                        if (size == stack.length){
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        stack[size++] = neighbor;
+                        kept = true;
+                    }
+                }
+                visited += claims;
+                if (claims == 0){
+                    backtracks++;
+                }
+                peakDepth = Math.max(peakDepth, size);
+            }
+            if (stats != null){
+                stats.record(visited, backtracks, peakDepth);
+                stats.recordSharing(forked.size(), 0);
+            }
+
+            for (Branch branch : forked){
+                if (found){
+                    branch.cancel(false);
+                } else {
+                    branch.join();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a path from start to end up to date while walls of the maze are opened and closed.
+ * Every cell knows its position on the path, so an edit that does not touch the path costs
+ * nothing, and an edit that does is repaired where it happened:
+ *
+ * - Opening a wall between two cells of the path cuts out the loop between them.
+ * - Closing a wall the path goes through searches breadth first from the cell before the
+ *   cut until the rest of the path is reached again. Cells of the path before the cut the
+ *   detour runs into are erased together with the loop they close, so the path stays simple.
+ *
+ * The search of a repair only visits cells reachable before the rest of the path is found,
+ * and its bookkeeping is reset by a new stamp instead of clearing whole arrays. Only if the
+ * cut separates start from end it has to run through the whole part of the maze containing
+ * start; until a later opening reconnects them there is no path.
+ *
+ * The maze must only be changed through open and close while the solver is used.
+ */
+public final class IncrementalSolver {
+
+    private final MazeGrid grid;
+    private final int start;
+    private final int end;
+
+    private int[] path; // null while end can not be reached
+    private int length;
+    private final int[] position; // position of the cell on the path, -1 if not on it
+
+    // breadth first search state, cells are seen in the current search if seen[cell] == stamp
+    private final int[] seen;
+    private final int[] from;
+    private final int[] queue;
+    private int stamp;
+    // while there is no path: the cells seen in the current search are exactly those reachable from start
+    private boolean reachValid;
+
+    public IncrementalSolver(MazeGrid grid, int start, int end){
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+        this.position = new int[grid.size()];
+        this.seen = new int[grid.size()];
+        this.from = new int[grid.size()];
+        this.queue = new int[grid.size()];
+        Arrays.fill(position, -1);
+        solveFromStart();
+    }
+
+    /**
+     * @return the current path from start to end as cell indices, or null if end can not be reached
+     */
+    public int[] path(){
+        return path == null ? null : Arrays.copyOf(path, length);
+    }
+
+    public boolean isSolved(){
+        return path != null;
+    }
+
+    /**
+     * Opens the wall between the cell and its neighbor in direction dir.
+     * @throws IllegalArgumentException if the cell has no neighbor in that direction, the maze is left unchanged
+     */
+    public void open(int cell, int dir){
+        int neighbor = neighbor(cell, dir);
+        if (grid.hasPassage(cell, dir)){
+            return;
+        }
+        grid.carve(cell, dir);
+        if (path == null){
+            if (!reachValid){
+                solveFromStart();
+                return;
+            }
+            // only a wall on the border of the part reachable from start can reconnect end
+            boolean inside = seen[cell] == stamp;
+            if (inside == (seen[neighbor] == stamp)){
+                return;
+            }
+            int outside = inside ? neighbor : cell;
+            seen[outside] = stamp;
+            from[outside] = inside ? cell : neighbor;
+            queue[0] = outside;
+            flood(1);
+            return;
+        }
+
+        int a = position[cell];
+        int b = position[neighbor];
+        if (a < 0 || b < 0 || Math.abs(a - b) == 1){
+            return;
+        }
+        // step directly from the earlier to the later of the two cells
+        int first = Math.min(a, b);
+        int last = Math.max(a, b);
+        for (int i = first + 1; i < last; i++){
+            position[path[i]] = -1;
+        }
+        System.arraycopy(path, last, path, first + 1, length - last);
+        length -= last - first - 1;
+        for (int i = first + 1; i < length; i++){
+            position[path[i]] = i;
+        }
+    }
+
+    /**
+     * Closes the wall between the cell and its neighbor in direction dir.
+     * @throws IllegalArgumentException if the cell has no neighbor in that direction, the maze is left unchanged
+     */
+    public void close(int cell, int dir){
+        int neighbor = neighbor(cell, dir);
+        if (!grid.hasPassage(cell, dir)){
+            return;
+        }
+        grid.closeWall(cell, dir);
+        if (path == null){
+            // the part reachable from start only shrinks if the wall is inside of it
+            if (seen[cell] == stamp){
+                reachValid = false;
+            }
+            return;
+        }
+
+        int a = position[cell];
+        int b = position[neighbor];
+        if (a < 0 || b < 0 || Math.abs(a - b) != 1){
+            return;
+        }
+        repair(Math.min(a, b));
+    }
+
+    /**
+     * @return the neighbor of the cell in direction dir
+     * @throws IllegalArgumentException if there is no such cell, e.g. east of the last column
+     */
+    private int neighbor(int cell, int dir){
+        if (cell < 0 || cell >= grid.size() || dir < 0 || dir >= 4){
+            throw new IllegalArgumentException("no cell " + cell + " with a wall in direction " + dir + " in the maze");
+        }
+        Direction direction = Direction.values()[dir];
+        if (!grid.contains(grid.x(cell) + direction.dx, grid.y(cell) + direction.dy)){
+            throw new IllegalArgumentException(grid.point(cell) + " has no neighbor in direction " + direction + " in the maze");
+        }
+        return grid.neighbor(cell, dir);
+    }
+
+    /**
+     * Reconnects path[cut] with the rest of the path after the step to path[cut + 1] was closed.
+     */
+    private void repair(int cut){
+        int target = search(path[cut], cut);
+        if (target < 0){
+            // start and end are separated, remember which part start can still reach
+            solveFromStart();
+            return;
+        }
+
+        // detour from path[cut] to target, in reverse
+        int detourLength = 0;
+        for (int cell = target; cell != path[cut]; cell = from[cell]){
+            queue[detourLength++] = cell;
+        }
+
+        int rejoin = position[target];
+        int[] suffix = Arrays.copyOfRange(path, rejoin + 1, length);
+        for (int i = cut + 1; i < length; i++){
+            position[path[i]] = -1;
+        }
+        length = cut + 1;
+        for (int i = detourLength - 1; i >= 0; i--){
+            int cell = queue[i];
+            if (position[cell] >= 0){
+                // the detour runs back into the path before the cut, erase the loop
+                int loop = position[cell];
+                for (int j = loop + 1; j < length; j++){
+                    position[path[j]] = -1;
+                }
+                length = loop + 1;
+            } else {
+                append(cell);
+            }
+        }
+        for (int cell : suffix){
+            append(cell);
+        }
+    }
+
+    /**
+     * Breadth first search from the given cell for the nearest cell on the path after the cut.
+     * @return that cell, or -1 if none can be reached
+     */
+    private int search(int origin, int cut){
+        nextStamp();
+        int head = 0;
+        int tail = 0;
+        seen[origin] = stamp;
+        queue[tail++] = origin;
+        while (head < tail){
+            int cell = queue[head++];
+            int neighbors = grid.neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = grid.neighborAt(cell, k);
+                if (seen[next] == stamp){
+                    continue;
+                }
+                seen[next] = stamp;
+                from[next] = cell;
+                if (position[next] > cut){
+                    return next;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return -1;
+    }
+
+    private void nextStamp(){
+        stamp++;
+        if (stamp == 0){
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+    }
+
+    private void solveFromStart(){
+        clearPath();
+        nextStamp();
+        seen[start] = stamp;
+        queue[0] = start;
+        flood(1);
+    }
+
+    /**
+     * Continues the breadth first search from start with the first tail cells in queue,
+     * and takes the path to end as soon as it is found.
+     */
+    private void flood(int tail){
+        int head = 0;
+        while (head < tail && seen[end] != stamp){
+            int cell = queue[head++];
+            int neighbors = grid.neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = grid.neighborAt(cell, k);
+                if (seen[next] != stamp){
+                    seen[next] = stamp;
+                    from[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        reachValid = seen[end] != stamp;
+        if (reachValid){
+            return;
+        }
+
+        int count = 1;
+        for (int cell = end; cell != start; cell = from[cell]){
+            count++;
+        }
+        path = new int[Math.max(count, 16)];
+        length = count;
+        for (int i = count - 1, cell = end; i >= 0; i--, cell = from[cell]){
+            path[i] = cell;
+            position[cell] = i;
+        }
+    }
+
+    private void clearPath(){
+        if (path != null){
+            for (int i = 0; i < length; i++){
+                position[path[i]] = -1;
+            }
+        }
+        path = null;
+        length = 0;
+    }
+
+    private void append(int cell){
+        if (length == path.length){
+            path = Arrays.copyOf(path, length * 2);
+        }
+        position[cell] = length;
+        path[length++] = cell;
+    }
+}
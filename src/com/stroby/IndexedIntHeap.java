@@ -0,0 +1,109 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of int items from [0, capacity) with long keys, kept in primitive arrays.
+ * Every item knows its slot in the heap, so its key can be decreased in O(log n) without
+ * searching for it, and no node objects are allocated per item.
+ */
+final class IndexedIntHeap {
+
+    private static final int ABSENT = -1;
+    private static final int REMOVED = -2;
+
+    private final int[] slot; // slot of the item in the heap, ABSENT or REMOVED
+    private int[] items;
+    private long[] keys; // keys[i] belongs to items[i]
+    private int size;
+
+    IndexedIntHeap(int capacity){
+        this.slot = new int[capacity];
+        Arrays.fill(slot, ABSENT);
+        int initial = Math.min(capacity, 1024);
+        this.items = new int[initial];
+        this.keys = new long[initial];
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * @return true if the item has been taken out by poll
+     */
+    boolean wasRemoved(int item){
+        return slot[item] == REMOVED;
+    }
+
+    /**
+     * Adds the item, or lowers its key if it is in the heap with a larger one.
+     */
+    void offer(int item, long key){
+        int i = slot[item];
+        if (i == REMOVED){
+            throw new IllegalStateException("Item " + item + " has already been removed");
+        }
+        if (i == ABSENT){
+            if (size == items.length){
+                items = Arrays.copyOf(items, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            i = size++;
+        } else if (keys[i] <= key){
+            return;
+        }
+        siftUp(i, item, key);
+    }
+
+    /**
+     * @return the item with the smallest key, which is taken out of the heap
+     */
+    int poll(){
+        int top = items[0];
+        slot[top] = REMOVED;
+        size--;
+        if (size > 0){
+            siftDown(0, items[size], keys[size]);
+        }
+        return top;
+    }
+
+    private void siftUp(int i, int item, long key){
+        while (i > 0){
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key){
+                break;
+            }
+            place(i, items[parent], keys[parent]);
+            i = parent;
+        }
+        place(i, item, key);
+    }
+
+    private void siftDown(int i, int item, long key){
+        int half = size >>> 1;
+        while (i < half){
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]){
+                child++;
+            }
+            if (key <= keys[child]){
+                break;
+            }
+            place(i, items[child], keys[child]);
+            i = child;
+        }
+        place(i, item, key);
+    }
+
+    private void place(int i, int item, long key){
+        items[i] = item;
+        keys[i] = key;
+        slot[item] = i;
+    }
+}
@@ -0,0 +1,236 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * The maze with every corridor collapsed into one weighted edge. Nodes are the cells that
+ * do not have exactly two passages (junctions and dead ends) plus start and end; an edge
+ * leads from one node through a corridor of two-passage cells to the next node. Besides its
+ * target and length an edge keeps the direction it leaves its node in, which is enough to
+ * walk the corridor again and expand the edge back into cells.
+ *
+ * Everything is stored in flat arrays: the edges of node i are edgeStart[i] until
+ * edgeStart[i + 1].
+ */
+public final class JunctionGraph {
+
+    private static final int BAND_CELLS = 1 << 16;
+
+    private final MazeGrid grid;
+    private final int start;
+    private final int end;
+
+    private final int[] nodeCell; // sorted ascending
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final int[] edgeLength;
+    private final byte[] edgeDir;
+
+    private JunctionGraph(MazeGrid grid, int start, int end, int[] nodeCell, int[] edgeStart,
+                          int[] edgeTarget, int[] edgeLength, byte[] edgeDir){
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+        this.nodeCell = nodeCell;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeLength = edgeLength;
+        this.edgeDir = edgeDir;
+    }
+
+    public static JunctionGraph build(MazeGrid grid, int start, int end){
+        return build(grid, start, end, Parallel.threads());
+    }
+
+    /**
+     * Builds the graph in parallel over bands of rows. Every pass writes only the part of the
+     * arrays that belongs to its band, and nothing is allocated per cell.
+     */
+    public static JunctionGraph build(MazeGrid grid, int start, int end, int threads){
+        int rowsPerBand = Math.max(1, BAND_CELLS / grid.getWidth());
+        int bands = (grid.getHeight() + rowsPerBand - 1) / rowsPerBand;
+        int[] bandFirstCell = new int[bands + 1];
+        for (int b = 0; b <= bands; b++){
+            bandFirstCell[b] = Math.min(grid.getHeight(), b * rowsPerBand) * grid.getWidth();
+        }
+
+        // count the nodes and their edges per band, then place the bands one after the other
+        int[] bandNodes = new int[bands + 1];
+        int[] bandEdges = new int[bands + 1];
+        Parallel.forEach(threads, bands, b -> {
+            int nodes = 0;
+            int edges = 0;
+            for (int cell = bandFirstCell[b]; cell < bandFirstCell[b + 1]; cell++){
+                if (isNode(grid, cell, start, end)){
+                    nodes++;
+                    edges += grid.neighborCount(cell);
+                }
+            }
+            bandNodes[b + 1] = nodes;
+            bandEdges[b + 1] = edges;
+        });
+        for (int b = 0; b < bands; b++){
+            bandNodes[b + 1] += bandNodes[b];
+            bandEdges[b + 1] += bandEdges[b];
+        }
+        int nodes = bandNodes[bands];
+        int edges = bandEdges[bands];
+
+        int[] nodeCell = new int[nodes];
+        int[] edgeStart = new int[nodes + 1];
+        edgeStart[nodes] = edges;
+        Parallel.forEach(threads, bands, b -> {
+            int node = bandNodes[b];
+            int edge = bandEdges[b];
+            for (int cell = bandFirstCell[b]; cell < bandFirstCell[b + 1]; cell++){
+                if (isNode(grid, cell, start, end)){
+                    nodeCell[node] = cell;
+                    edgeStart[node] = edge;
+                    node++;
+                    edge += grid.neighborCount(cell);
+                }
+            }
+        });
+
+        // nodeCell is sorted now, as the bands are in cell order
+        int[] edgeTarget = new int[edges];
+        int[] edgeLength = new int[edges];
+        byte[] edgeDir = new byte[edges];
+        Parallel.forEach(threads, bands, b -> {
+            int[] walk = new int[2];
+            for (int i = bandNodes[b]; i < bandNodes[b + 1]; i++){
+                int cell = nodeCell[i];
+                int passages = grid.neighborCount(cell);
+                for (int k = 0; k < passages; k++){
+                    int dir = grid.neighborDir(cell, k);
+                    walkCorridor(grid, cell, dir, start, end, walk);
+                    int edge = edgeStart[i] + k;
+                    edgeTarget[edge] = Arrays.binarySearch(nodeCell, walk[0]);
+                    edgeLength[edge] = walk[1];
+                    edgeDir[edge] = (byte) dir;
+                }
+            }
+        });
+        return new JunctionGraph(grid, start, end, nodeCell, edgeStart, edgeTarget, edgeLength, edgeDir);
+    }
+
+    static boolean isNode(MazeGrid grid, int cell, int start, int end){
+        return grid.neighborCount(cell) != 2 || cell == start || cell == end;
+    }
+
+    /**
+     * Follows the corridor leaving cell in direction dir up to the next node.
+     * @param result receives the node cell reached and the number of steps taken
+     */
+    static void walkCorridor(MazeGrid grid, int cell, int dir, int start, int end, int[] result){
+        int length = 1;
+        cell = grid.neighbor(cell, dir);
+        while (!isNode(grid, cell, start, end)){
+            // a corridor cell has exactly two passages, leave through the one we did not come in by
+            dir = Integer.numberOfTrailingZeros(grid.passages(cell) & ~(1 << MazeGrid.opposite(dir)));
+            cell = grid.neighbor(cell, dir);
+            length++;
+        }
+        result[0] = cell;
+        result[1] = length;
+    }
+
+    public int nodeCount(){
+        return nodeCell.length;
+    }
+
+    public int edgeCount(){
+        return edgeTarget.length;
+    }
+
+    /**
+     * @return the approximate heap size of the graph in bytes, without the grid it was built from
+     */
+    public long sizeInBytes(){
+        return 4L * (nodeCell.length + edgeStart.length + edgeTarget.length + edgeLength.length) + edgeDir.length;
+    }
+
+    /**
+     * Depth first search from the start node to the end node over the junctions only.
+     * @return the path from start to end expanded back to cell indices, or null if end can not be reached
+     */
+    public int[] solve(){
+        return solve(null);
+    }
+
+    /**
+     * @param stats counts the junctions visited, may be null
+     */
+    public int[] solve(ThreadStats stats){
+        long visited = 1;
+        long backtracks = 0;
+        int peakDepth = 1;
+
+        int nodes = nodeCell.length;
+        int first = Arrays.binarySearch(nodeCell, start);
+        int last = Arrays.binarySearch(nodeCell, end);
+
+        int[] via = new int[nodes]; // edge the node was reached through, -1 if not reached yet
+        int[] previous = new int[nodes];
+        Arrays.fill(via, -1);
+        int[] stack = new int[nodes];
+        int size = 0;
+        via[first] = Integer.MAX_VALUE;
+        stack[size++] = first;
+        while (size > 0 && via[last] < 0){
+            int node = stack[--size];
+            int reached = 0;
+            for (int edge = edgeStart[node]; edge < edgeStart[node + 1]; edge++){
+                int target = edgeTarget[edge];
+                if (via[target] < 0){
+                    via[target] = edge;
+                    previous[target] = node;
+                    stack[size++] = target;
+                    reached++;
+                }
+            }
+            visited += reached;
+            if (reached == 0){
+                backtracks++;
+            }
+            peakDepth = Math.max(peakDepth, size);
+        }
+        if (stats != null){
+            stats.record(visited, backtracks, peakDepth);
+        }
+        if (via[last] < 0){
+            return null;
+        }
+        return expand(first, last, via, previous);
+    }
+
+    private int[] expand(int first, int last, int[] via, int[] previous){
+        int length = 1;
+        for (int node = last; node != first; node = previous[node]){
+            length += edgeLength[via[node]];
+        }
+
+        int[] path = new int[length];
+        int index = length - 1;
+        for (int node = last; node != first; ){
+            int edge = via[node];
+            int from = previous[node];
+            // walk the corridor forward from its start node, filling the part of path it covers
+            int cell = nodeCell[from];
+            int dir = edgeDir[edge];
+            int base = index - edgeLength[edge];
+            path[base] = cell;
+            for (int step = 1; step <= edgeLength[edge]; step++){
+                cell = grid.neighbor(cell, dir);
+                path[base + step] = cell;
+                if (step < edgeLength[edge]){
+                    dir = Integer.numberOfTrailingZeros(grid.passages(cell) & ~(1 << MazeGrid.opposite(dir)));
+                }
+            }
+            index = base;
+            node = from;
+        }
+        path[0] = nodeCell[first];
+        return path;
+    }
+}
@@ -2,45 +2,147 @@ package com.stroby;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 public class Main {
 
-    public static final int width = 1000;
-    public static final int height = 1000;
-    public static SequentialMaze maze;
+    private static final int width = 1000;
+    private static final int height = 1000;
+    private static final long seed = 1;
 
+    /**
+     * Without arguments runs every solver on one 1000x1000 maze. With
+     * "batch [mazes] [size] [threads] [solver]" solves many mazes at the same time instead,
+     * with "stream [width] [height] [maze file]" generates and solves a maze row by row.
+     */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("batch")){
+            batch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("stream")){
+            stream(args);
+            return;
+        }
 
-        maze = new SequentialMaze(width, height, new Point(width-1, 0), new Point(0, height-1));
+        // phase timings and per thread counters of this run, written to the file given by -Dmaze.metrics=<file> or printed at the end
+        SolverMetrics metrics = new SolverMetrics();
+        SequentialMaze maze = metrics.time("generate", Main::generate);
 
         System.out.println("Original Version");
-        StartTimer();
-        Point[] solution = maze.solve();
-        TimeCheck();
-        System.out.println(maze.checkSolution(solution));
+        Stopwatch timer = new Stopwatch();
+        Point[] solution = metrics.time("solve Original Version", () -> maze.solve(metrics.thread("Original Version", "main")));
+        timer.check();
+        metrics.time("verify", () -> System.out.println(maze.checkSolution(solution)));
 
-        NodeSolver.run();
+        NodeSolver.run(maze, metrics);
 
+        exportMetrics(metrics);
+        exportPng(maze, solution);
         showSolution(maze, solution);
     }
 
-    private static long startTimer;
-    public static void StartTimer(){
-        startTimer = System.currentTimeMillis();
+    /**
+     * Generates the maze, or with -Dmaze.cache=<dir> loads it from there if an earlier run has
+     * generated it already.
+     */
+    private static SequentialMaze generate(){
+        Point start = new Point(width-1, 0);
+        Point end = new Point(0, height-1);
+        String directory = System.getProperty("maze.cache");
+        if (directory == null){
+            return new SequentialMaze(width, height, start, end, seed);
+        }
+        MazeCache cache = new MazeCache(Long.MAX_VALUE, Path.of(directory));
+        SequentialMaze maze = cache.maze(new MazeCache.Key(width, height, start, end, seed));
+        System.out.println(cache.getLoads() > 0 ? "Maze loaded from " + directory : "Maze generated and spilled to " + directory);
+        return maze;
     }
-    public static void TimeCheck(){
-        long differnce = System.currentTimeMillis() - startTimer;
-        System.out.println(differnce + " ms");
+
+    private static void batch(String[] args){
+        int mazes = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Parallel.threads();
+        String solver = args.length > 4 ? args[4] : "node";
+
+        System.out.println("Batch of " + mazes + " mazes " + size + "x" + size + " on " + threads + " threads, solver " + solver);
+        // every maze is solved on one thread, the batch itself is spread over the threads
+        BatchSolver.Result result = BatchSolver.run(mazes, size, size, seed, threads, MazeSolver.byName(solver, 1));
+        System.out.println(result);
+    }
+
+    private static void stream(String[] args){
+        int streamWidth = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long streamHeight = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+        Path file = args.length > 3 ? Path.of(args[3]) : null;
+
+        System.out.println("Streaming " + streamWidth + "x" + streamHeight + (file == null ? "" : " into " + file));
+        Stopwatch timer = new Stopwatch();
+        try {
+            StreamingMaze.Result result = StreamingMaze.generateAndSolve(streamWidth, streamHeight, streamWidth-1, 0, seed, file);
+            timer.check();
+            System.out.println(result);
+            if (result.getPath() != null){
+                System.out.println("path of " + result.getPath().length() + " steps found in the maze file");
+            }
+        } catch (IOException e) {
+            System.out.println("Streaming failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void exportMetrics(SolverMetrics metrics){
+        String file = System.getProperty("maze.metrics");
+        if (file == null){
+            System.out.println(metrics.toJson());
+            return;
+        }
+        try {
+            Files.writeString(Path.of(file), metrics.toJson());
+        } catch (IOException e) {
+            System.out.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the maze with its solution as PNG tiles into the directory given by -Dmaze.png=<dir>, if any.
+     */
+    private static void exportPng(SequentialMaze maze, Point[] solution){
+        String directory = System.getProperty("maze.png");
+        if (directory == null){
+            return;
+        }
+        MazeRenderer renderer = new MazeRenderer(maze.getGrid(), maze.getStart(), maze.getEnd(), SequentialMaze.CELL_PX);
+        renderer.setSolution(solution);
+        try {
+            renderer.exportTiles(Path.of(directory), Parallel.threads());
+        } catch (IOException e) {
+            System.out.println("Could not write the PNG tiles to " + directory + ": " + e.getMessage());
+        }
     }
 
     private static void showSolution(SequentialMaze maze, Point[] solution){
-        if (!maze.smallEnoughToDisplay()) { return;}
+        if (GraphicsEnvironment.isHeadless()) { return;}
+        if (!maze.smallEnoughToDisplay()) {
+            // too large for SequentialMaze.display, show it in a scrollable viewport that only draws the visible tiles
+            MazeViewport viewport = new MazeViewport(maze.getGrid(), maze.getStart(), maze.getEnd(), SequentialMaze.CELL_PX);
+            viewport.setSolution(solution);
+            JFrame frame = new JFrame("Sequential maze solver");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setSize(1000, 1000);
+            frame.getContentPane().add(viewport.inScrollPane(), BorderLayout.CENTER);
+            frame.setVisible(true);
+            return;
+        }
 
         JFrame frame = new JFrame("Sequential maze solver");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         // angegebene Frame-Größe, deshalb width+5 und height+10:
-        frame.setSize((width+5)* SequentialMaze.CELL_PX, (height+10)* SequentialMaze.CELL_PX);
+        frame.setSize((maze.getGrid().getWidth()+5)* SequentialMaze.CELL_PX, (maze.getGrid().getHeight()+10)* SequentialMaze.CELL_PX);
         frame.getContentPane().add(maze, BorderLayout.CENTER);
         frame.setVisible(true); // will draw the maze (without solution)
         maze.displaySolution(solution, frame);
@@ -0,0 +1,127 @@
+package com.stroby;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A maze file (see MazeFile) mapped into memory. The passages are read straight from the
+ * mapping, so the maze does not take any heap space and several processes can share the
+ * same file through the page cache. A single MappedByteBuffer can not exceed 2 GB, so larger
+ * files are mapped in segments.
+ */
+public final class MappedMaze implements MazeView, Closeable {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int width;
+    private final int height;
+    private final Point start;
+    private final Point end;
+    private final long seed;
+
+    private MappedMaze(FileChannel channel, MappedByteBuffer[] segments, int width, int height, Point start, Point end, long seed){
+        this.channel = channel;
+        this.segments = segments;
+        this.width = width;
+        this.height = height;
+        this.start = start;
+        this.end = end;
+        this.seed = seed;
+    }
+
+    public static MappedMaze open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(MazeFile.HEADER_BYTES);
+            while (header.hasRemaining()){
+                if (channel.read(header, header.position()) < 0){
+                    throw new IOException(file + " is too short to be a maze file");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MazeFile.MAGIC){
+                throw new IOException(file + " is not a maze file");
+            }
+            int version = header.getInt();
+            if (version != MazeFile.VERSION){
+                throw new IOException(file + " has unsupported maze file version " + version);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            Point start = new Point(header.getInt(), header.getInt());
+            Point end = new Point(header.getInt(), header.getInt());
+            long seed = header.getLong();
+
+            long bytes = MazeFile.dataBytes(width, height);
+            if (channel.size() < MazeFile.HEADER_BYTES + bytes){
+                throw new IOException(file + " is truncated");
+            }
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((bytes + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++){
+                long offset = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, MazeFile.HEADER_BYTES + offset,
+                        Math.min(SEGMENT_BYTES, bytes - offset));
+            }
+            return new MappedMaze(channel, segments, width, height, start, end, seed);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public Point getStart() {
+        return start;
+    }
+
+    public Point getEnd() {
+        return end;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public int passages(int x, int y) {
+        long cell = (long) y * width + x;
+        long offset = cell >>> 1;
+        int bits = segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & (SEGMENT_BYTES - 1)));
+        return (bits >>> ((int) (cell & 1) * MazeGrid.BITS_PER_CELL)) & MazeGrid.CELL_MASK;
+    }
+
+    /**
+     * Copies the maze onto the heap, only possible for mazes with less than 2^31 cells.
+     */
+    public MazeGrid toGrid(){
+        MazeGrid grid = new MazeGrid(width, height);
+        for (int y = 0; y < height; y++){
+            for (int x = 0; x < width; x++){
+                grid.or(grid.index(x, y), passages(x, y));
+            }
+        }
+        return grid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,311 @@
+package com.stroby;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps generated mazes and the structures derived from them (junction graph, path index,
+ * or anything else built from a maze) for runs that use the same few mazes over and over.
+ * A maze is generated deterministically from its Key, so every entry can be rebuilt at any
+ * time and the cache is free to drop entries: when the estimated size of all entries exceeds
+ * the budget, the least recently used ones are evicted.
+ *
+ * With a spill directory every generated maze is also written there as a MazeFile, and a
+ * maze that is not in memory is loaded from there before it is generated again, which also
+ * carries mazes over from one run to the next. Derived structures are only kept in memory.
+ * They hold on to the grid of their maze without counting it, so they are evicted together
+ * with their maze, which keeps the grid counted exactly once while anything uses it.
+ *
+ * Lookups are thread safe. Entries are built outside of the lock, so two threads missing the
+ * same entry at the same time both build it, and the one finishing last is kept. The entries
+ * themselves are shared: solve a cached maze concurrently through its grid, not through
+ * SequentialMaze.solve, which keeps its state in the maze.
+ */
+public final class MazeCache {
+
+    private final long budgetBytes;
+    private final Path spillDirectory; // null if nothing is spilled
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long loads;
+    private long evictions;
+
+    // Key or Derived -> Entry, in access order so the eldest entry is the least recently used one
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MazeCache(long budgetBytes){
+        this(budgetBytes, null);
+    }
+
+    /**
+     * @param spillDirectory directory generated mazes are written to and loaded from, or null
+     */
+    public MazeCache(long budgetBytes, Path spillDirectory){
+        if (budgetBytes < 0){
+            throw new IllegalArgumentException("budgetBytes must not be negative, but is " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * @return the maze for the key, from memory, from the spill directory, or generated
+     */
+    public SequentialMaze maze(Key key){
+        SequentialMaze maze = (SequentialMaze) lookup(key);
+        if (maze != null){
+            return maze;
+        }
+        maze = spillDirectory == null ? null : load(key);
+        if (maze == null){
+            maze = new SequentialMaze(key.width, key.height, key.start, key.end, key.seed);
+            if (spillDirectory != null){
+                spill(key, maze);
+            }
+        }
+        store(key, maze, maze.sizeInBytes());
+        return maze;
+    }
+
+    /**
+     * @return the grid of the maze, as NodeSolver.convertMaze builds it; it is part of the maze,
+     * so it is cached and counted together with it
+     */
+    public MazeGrid grid(Key key){
+        return NodeSolver.convertMaze(maze(key));
+    }
+
+    public JunctionGraph junctionGraph(Key key){
+        return derived(key, "junctionGraph", maze -> {
+            MazeGrid grid = NodeSolver.convertMaze(maze);
+            return JunctionGraph.build(grid, grid.index(maze.getStart()), grid.index(maze.getEnd()));
+        }, JunctionGraph::sizeInBytes);
+    }
+
+    public TreePathIndex treePathIndex(Key key){
+        return derived(key, "treePathIndex", maze -> TreePathIndex.build(NodeSolver.convertMaze(maze)), TreePathIndex::sizeInBytes);
+    }
+
+    /**
+     * Returns the structure cached under the name for the maze, or builds and caches it.
+     * @param build builds the structure from the maze, without looking anything up in the cache
+     * @param sizer the approximate heap size of a structure in bytes, which counts against the budget;
+     * the maze is counted on its own
+     */
+    public <T> T derived(Key key, String name, Function<SequentialMaze, T> build, ToLongFunction<T> sizer){
+        Derived derivedKey = new Derived(key, name);
+        @SuppressWarnings("unchecked")
+        T value = (T) lookup(derivedKey);
+        if (value != null){
+            return value;
+        }
+        value = build.apply(maze(key));
+        store(derivedKey, value, sizer.applyAsLong(value));
+        return value;
+    }
+
+    private synchronized Object lookup(Object key){
+        if (key instanceof Derived){
+            // a structure is evicted together with its maze, so using the structure uses the maze as well
+            entries.get(((Derived) key).key);
+        }
+        Entry entry = entries.get(key);
+        if (entry == null){
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    private synchronized void store(Object key, Object value, long size){
+        Entry previous = entries.put(key, new Entry(value, size));
+        if (previous != null){
+            bytes -= previous.bytes;
+        }
+        bytes += size;
+        // evict the least recently used entries, but never the one just stored unless its maze goes
+        while (bytes > budgetBytes && entries.size() > 1){
+            Object evicted = entries.keySet().iterator().next();
+            bytes -= entries.remove(evicted).bytes;
+            evictions++;
+            if (evicted instanceof Key){
+                Iterator<Map.Entry<Object, Entry>> derived = entries.entrySet().iterator();
+                while (derived.hasNext()){
+                    Map.Entry<Object, Entry> entry = derived.next();
+                    if (entry.getKey() instanceof Derived && ((Derived) entry.getKey()).key.equals(evicted)){
+                        bytes -= entry.getValue().bytes;
+                        derived.remove();
+                        evictions++;
+                    }
+                }
+            }
+        }
+    }
+
+    private Path spillFile(Key key){
+        return spillDirectory.resolve(key.width + "x" + key.height + "_" + key.start.getX() + "_" + key.start.getY()
+                + "_" + key.end.getX() + "_" + key.end.getY() + "_" + key.seed + ".maze");
+    }
+
+    /**
+     * @return the spilled maze, or null if there is none for the key
+     */
+    private SequentialMaze load(Key key){
+        Path file = spillFile(key);
+        if (!Files.isRegularFile(file)){
+            return null;
+        }
+        try {
+            SequentialMaze maze = MazeFile.load(file);
+            if (!Key.of(maze).equals(key)){
+                return null;
+            }
+            synchronized (this){
+                loads++;
+            }
+            return maze;
+        } catch (IOException e) {
+            // a damaged file is replaced by the generated maze
+            return null;
+        }
+    }
+
+    private void spill(Key key, SequentialMaze maze){
+        try {
+            Files.createDirectories(spillDirectory);
+            // written under a temporary name and renamed, so no other run ever sees half a file
+            Path temp = Files.createTempFile(spillDirectory, "spill", ".tmp");
+            try {
+                MazeFile.write(temp, maze);
+                Files.move(temp, spillFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill maze " + key + " to " + spillDirectory, e);
+        }
+    }
+
+    public synchronized void clear(){
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return the estimated size of all entries in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of mazes loaded from the spill directory instead of being generated
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return entries.size() + " entries, " + bytes / 1024 + " of " + budgetBytes / 1024 + " KiB, "
+                + hits + " hits, " + misses + " misses, " + loads + " loaded, " + evictions + " evicted";
+    }
+
+    /**
+     * Everything a maze is generated from.
+     */
+    public static final class Key {
+
+        private final int width;
+        private final int height;
+        private final Point start;
+        private final Point end;
+        private final long seed;
+
+        public Key(int width, int height, Point start, Point end, long seed){
+            this.width = width;
+            this.height = height;
+            this.start = start;
+            this.end = end;
+            this.seed = seed;
+        }
+
+        public static Key of(SequentialMaze maze){
+            return new Key(maze.getGrid().getWidth(), maze.getGrid().getHeight(), maze.getStart(), maze.getEnd(), maze.getSeed());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key) other;
+            return width == key.width && height == key.height && start.equals(key.start) && end.equals(key.end) && seed == key.seed;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(width, height, start, end, seed);
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height + " " + start + " -> " + end + " seed " + seed;
+        }
+    }
+
+    private static final class Derived {
+
+        private final Key key;
+        private final String name;
+
+        Derived(Key key, String name){
+            this.key = key;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Derived && key.equals(((Derived) other).key) && name.equals(((Derived) other).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + name.hashCode();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long bytes;
+
+        Entry(Object value, long bytes){
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.stroby;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compact binary maze file. Layout (big endian):
+ *
+ *   int  MAGIC, int VERSION,
+ *   int  width, int height,
+ *   int  start x, int start y, int end x, int end y,
+ *   long seed,
+ *   then the passage bits of all cells in row major order, 4 bits per cell,
+ *   two cells per byte with the lower cell index in the low nibble.
+ *
+ * Files are written one row at a time by a Writer, so a maze never has to be on the heap
+ * as a whole, and read back without loading them through MappedMaze.
+ */
+public final class MazeFile {
+
+    static final int MAGIC = 0x4D415A45; // "MAZE"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 10 * Integer.BYTES;
+
+    private MazeFile() {}
+
+    static long dataBytes(int width, int height){
+        return ((long) width * height + 1) / 2;
+    }
+
+    public static void write(Path file, SequentialMaze maze) throws IOException {
+        MazeGrid grid = maze.getGrid();
+        try (Writer writer = new Writer(file, grid.getWidth(), grid.getHeight(), maze.getStart(), maze.getEnd(), maze.getSeed())){
+            int[] row = new int[grid.getWidth()];
+            for (int y = 0; y < grid.getHeight(); y++){
+                for (int x = 0; x < row.length; x++){
+                    row[x] = grid.passages(x, y);
+                }
+                writer.writeRow(row);
+            }
+        }
+    }
+
+    /**
+     * Reads a whole maze file back onto the heap.
+     */
+    public static SequentialMaze load(Path file) throws IOException {
+        try (MappedMaze mapped = MappedMaze.open(file)){
+            return new SequentialMaze(mapped.toGrid(), mapped.getStart(), mapped.getEnd(), mapped.getSeed());
+        }
+    }
+
+    /**
+     * Streams a maze file row by row, top to bottom.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final int width;
+        private final int height;
+        private int rows;
+        private int pending = -1; // low nibble of a byte still waiting for its high nibble, -1 if none
+
+        public Writer(Path file, int width, int height, Point start, Point end, long seed) throws IOException {
+            this.width = width;
+            this.height = height;
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(start.getX());
+            out.writeInt(start.getY());
+            out.writeInt(end.getX());
+            out.writeInt(end.getY());
+            out.writeLong(seed);
+        }
+
+        /**
+         * @param passages the passage bits of the next row, from x = 0 to width - 1
+         */
+        public void writeRow(int[] passages) throws IOException {
+            if (rows == height){
+                throw new IllegalStateException("All " + height + " rows have been written already");
+            }
+            for (int x = 0; x < width; x++){
+                int bits = passages[x] & MazeGrid.CELL_MASK;
+                if (pending < 0){
+                    pending = bits;
+                } else {
+                    out.write(pending | bits << MazeGrid.BITS_PER_CELL);
+                    pending = -1;
+                }
+            }
+            rows++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (pending >= 0){
+                    out.write(pending);
+                }
+                if (rows != height){
+                    throw new IOException("Maze file closed after " + rows + " of " + height + " rows");
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
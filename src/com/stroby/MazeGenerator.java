@@ -0,0 +1,234 @@
+package com.stroby;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a perfect maze in parallel. The grid is cut into square regions of
+ * REGION_SIZE cells, each region gets its own depth-first maze, and the regions
+ * are then joined by exactly one door per edge of a random spanning tree over the
+ * regions, so there is still exactly one path between any two cells.
+ *
+ * The region layout only depends on the maze size and every region draws from its
+ * own SplittableRandom split off the seed in region order, so the same seed always
+ * yields the same maze no matter how many threads are used.
+ */
+public final class MazeGenerator {
+
+    public static final int REGION_SIZE = 64;
+
+    private MazeGenerator() {}
+
+    public static void generate(MazeGrid grid, long seed){
+        generate(grid, seed, Parallel.threads());
+    }
+
+    /**
+     * @param grid a grid without passages, e.g. a new one
+     * @throws IllegalArgumentException if the grid has passages already
+     */
+    public static void generate(MazeGrid grid, long seed, int threads){
+        if (!grid.isEmpty()){
+            throw new IllegalArgumentException("Mazes can only be generated into a grid without passages");
+        }
+        int regionsX = (grid.getWidth() + REGION_SIZE - 1) / REGION_SIZE;
+        int regionsY = (grid.getHeight() + REGION_SIZE - 1) / REGION_SIZE;
+        int regions = regionsX * regionsY;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom[] regionRandoms = new SplittableRandom[regions];
+        for (int i = 0; i < regions; i++){
+            regionRandoms[i] = random.split();
+        }
+
+        Parallel.forEach(threads, regions, i -> generateRegion(grid, i % regionsX, i / regionsX, regionRandoms[i]));
+
+        joinRegions(grid, regionsX, regionsY, random);
+        // the grid started without passages, so the regions and doors form a spanning tree
+        grid.markPerfect();
+    }
+
+    /**
+     * Opens walls at dead ends, which turns the perfect maze into one with loops ("braiding").
+     * Every dead end gets a second passage with probability loopDensity, preferably into a
+     * neighboring dead end, which removes both at once.
+     *
+     * All decisions are made from the passages before braiding, per region with its own
+     * SplittableRandom, and only carved afterwards, so the result again only depends on the seed.
+     *
+     * @param loopDensity between 0 (the maze stays perfect) and 1 (no dead end is left)
+     */
+    public static void braid(MazeGrid grid, long seed, double loopDensity, int threads){
+        if (loopDensity < 0 || loopDensity > 1){
+            throw new IllegalArgumentException("loopDensity must be between 0 and 1, but is " + loopDensity);
+        }
+        int regionsX = (grid.getWidth() + REGION_SIZE - 1) / REGION_SIZE;
+        int regionsY = (grid.getHeight() + REGION_SIZE - 1) / REGION_SIZE;
+        int regions = regionsX * regionsY;
+
+        // a different stream than generate draws from for the same seed
+        SplittableRandom random = new SplittableRandom(seed ^ 0x9E3779B97F4A7C15L);
+        SplittableRandom[] regionRandoms = new SplittableRandom[regions];
+        for (int i = 0; i < regions; i++){
+            regionRandoms[i] = random.split();
+        }
+
+        // walls to open as cell * 4 + dir, per region
+        int[][] openings = new int[regions][];
+        Parallel.forEach(threads, regions, i -> openings[i] = chooseOpenings(grid, i % regionsX, i / regionsX, loopDensity, regionRandoms[i]));
+        Parallel.forEach(threads, regions, i -> {
+            for (int opening : openings[i]){
+                grid.carveConcurrent(opening >>> 2, opening & 3);
+            }
+        });
+    }
+
+    private static int[] chooseOpenings(MazeGrid grid, int regionX, int regionY, double loopDensity, SplittableRandom random){
+        int x0 = regionX * REGION_SIZE;
+        int y0 = regionY * REGION_SIZE;
+        int w = Math.min(REGION_SIZE, grid.getWidth() - x0);
+        int h = Math.min(REGION_SIZE, grid.getHeight() - y0);
+
+        int[] openings = new int[w * h];
+        int count = 0;
+        int[] candidates = new int[4];
+        Direction[] dirs = Direction.values();
+        for (int y = y0; y < y0 + h; y++){
+            for (int x = x0; x < x0 + w; x++){
+                int cell = grid.index(x, y);
+                if (grid.neighborCount(cell) != 1 || random.nextDouble() >= loopDensity){
+                    continue;
+                }
+                int walls = 0;
+                int deadEnds = 0;
+                for (int dir = 0; dir < dirs.length; dir++){
+                    if (!grid.contains(x + dirs[dir].dx, y + dirs[dir].dy) || grid.hasPassage(cell, dir)){
+                        continue;
+                    }
+                    // dead end neighbors first
+                    if (grid.neighborCount(grid.neighbor(cell, dir)) == 1){
+                        candidates[walls] = candidates[deadEnds];
+                        candidates[deadEnds++] = dir;
+                    } else {
+                        candidates[walls] = dir;
+                    }
+                    walls++;
+                }
+                if (walls == 0){
+                    continue;
+                }
+                int dir = candidates[random.nextInt(deadEnds > 0 ? deadEnds : walls)];
+                openings[count++] = cell * 4 + dir;
+            }
+        }
+        return Arrays.copyOf(openings, count);
+    }
+
+    /**
+     * Depth-first maze inside one region, carving only passages between cells of this region.
+     */
+    private static void generateRegion(MazeGrid grid, int regionX, int regionY, SplittableRandom random){
+        int x0 = regionX * REGION_SIZE;
+        int y0 = regionY * REGION_SIZE;
+        int w = Math.min(REGION_SIZE, grid.getWidth() - x0);
+        int h = Math.min(REGION_SIZE, grid.getHeight() - y0);
+
+        boolean[] visited = new boolean[w * h];
+        int[] stack = new int[w * h];
+        int[] candidates = new int[4];
+        Direction[] dirs = Direction.values();
+
+        int first = random.nextInt(w * h);
+        visited[first] = true;
+        stack[0] = first;
+        int size = 1;
+        while (size > 0){
+            int current = stack[size - 1];
+            int cx = current % w;
+            int cy = current / w;
+
+            int count = 0;
+            for (int dir = 0; dir < dirs.length; dir++){
+                int nx = cx + dirs[dir].dx;
+                int ny = cy + dirs[dir].dy;
+                if (0 <= nx && nx < w && 0 <= ny && ny < h && !visited[ny * w + nx]){
+                    candidates[count] = dir;
+                    count++;
+                }
+            }
+            if (count == 0){
+                size--;
+                continue;
+            }
+
+            int dir = candidates[random.nextInt(count)];
+            int next = (cy + dirs[dir].dy) * w + cx + dirs[dir].dx;
+            visited[next] = true;
+            grid.carveConcurrent(grid.index(x0 + cx, y0 + cy), dir);
+            stack[size] = next;
+            size++;
+        }
+    }
+
+    /**
+     * Randomized Kruskal over the region graph: every accepted region edge gets one door
+     * at a random position of the shared border.
+     */
+    private static void joinRegions(MazeGrid grid, int regionsX, int regionsY, SplittableRandom random){
+        int regions = regionsX * regionsY;
+        // region edge e < regions means "region e and its east neighbor", otherwise "region e - regions and its south neighbor"
+        int[] edges = new int[2 * regions];
+        int edgeCount = 0;
+        for (int r = 0; r < regions; r++){
+            if (r % regionsX < regionsX - 1){
+                edges[edgeCount++] = r;
+            }
+            if (r / regionsX < regionsY - 1){
+                edges[edgeCount++] = regions + r;
+            }
+        }
+        for (int i = edgeCount - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int tmp = edges[i];
+            edges[i] = edges[j];
+            edges[j] = tmp;
+        }
+
+        int[] parent = new int[regions];
+        for (int r = 0; r < regions; r++){
+            parent[r] = r;
+        }
+
+        for (int i = 0; i < edgeCount; i++){
+            boolean east = edges[i] < regions;
+            int a = east ? edges[i] : edges[i] - regions;
+            int b = east ? a + 1 : a + regionsX;
+            int rootA = find(parent, a);
+            int rootB = find(parent, b);
+            if (rootA == rootB){
+                continue;
+            }
+            parent[rootA] = rootB;
+
+            int x0 = (a % regionsX) * REGION_SIZE;
+            int y0 = (a / regionsX) * REGION_SIZE;
+            if (east){
+                int h = Math.min(REGION_SIZE, grid.getHeight() - y0);
+                int cell = grid.index(x0 + REGION_SIZE - 1, y0 + random.nextInt(h));
+                grid.carve(cell, Direction.E.ordinal());
+            } else {
+                int w = Math.min(REGION_SIZE, grid.getWidth() - x0);
+                int cell = grid.index(x0 + random.nextInt(w), y0 + REGION_SIZE - 1);
+                grid.carve(cell, Direction.S.ordinal());
+            }
+        }
+    }
+
+    private static int find(int[] parent, int r){
+        while (parent[r] != r){
+            parent[r] = parent[parent[r]];
+            r = parent[r];
+        }
+        return r;
+    }
+}
@@ -0,0 +1,281 @@
+package com.stroby;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Flat, primitive backed maze grid. Every cell holds the same 4 passage bits as
+ * SequentialMaze used to keep in an int[][] (see enum Direction), packed 16 cells
+ * into one long. Cells are addressed by the linear index y * width + x, so the
+ * neighbor of a cell is found by adding a constant offset instead of following a
+ * reference.
+ */
+public final class MazeGrid implements MazeView {
+
+    static final int BITS_PER_CELL = 4;
+    static final int CELLS_PER_WORD = 64 / BITS_PER_CELL;
+    static final int CELL_MASK = 0xF;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // NEIGHBOR_DIR[bits][k] is the direction index of the k-th passage in bits (in N, S, E, W order)
+    private static final int[][] NEIGHBOR_DIR = new int[16][];
+    static {
+        for (int bits = 0; bits < 16; bits++){
+            NEIGHBOR_DIR[bits] = new int[Integer.bitCount(bits)];
+            int index = 0;
+            for (int dir = 0; dir < 4; dir++){
+                if ((bits & (1 << dir)) != 0){
+                    NEIGHBOR_DIR[bits][index] = dir;
+                    index++;
+                }
+            }
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final long[] words;
+    private final int[] offsets;
+    // set once the maze is known to be perfect, cleared by every change of a passage
+    private boolean knownPerfect;
+
+    public MazeGrid(int width, int height){
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Unsupported maze size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.words = new long[(int) (((long) width * height + CELLS_PER_WORD - 1) / CELLS_PER_WORD)];
+
+        Direction[] dirs = Direction.values();
+        this.offsets = new int[dirs.length];
+        for (int i = 0; i < dirs.length; i++){
+            offsets[i] = dirs[i].dy * width + dirs[i].dx;
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public int size(){
+        return width * height;
+    }
+
+    /**
+     * @return the approximate heap size of the grid in bytes
+     */
+    public long sizeInBytes(){
+        return 8L * words.length + 4L * offsets.length;
+    }
+
+    public int index(int x, int y){
+        return y * width + x;
+    }
+
+    public int x(int cell){
+        return cell % width;
+    }
+
+    public int y(int cell){
+        return cell / width;
+    }
+
+    public int index(Point p){
+        return index(p.x, p.y);
+    }
+
+    public Point point(int cell){
+        return new Point(x(cell), y(cell));
+    }
+
+    public boolean contains(int x, int y){
+        return 0 <= x && x < width && 0 <= y && y < height;
+    }
+
+    /**
+     * @return the passage bits of the cell, one bit per Direction
+     */
+    public int passages(int cell){
+        return (int) (words[cell / CELLS_PER_WORD] >>> shift(cell)) & CELL_MASK;
+    }
+
+    @Override
+    public int passages(int x, int y){
+        return passages(index(x, y));
+    }
+
+    public boolean hasPassage(int cell, int dir){
+        return (passages(cell) & (1 << dir)) != 0;
+    }
+
+    /**
+     * @return the cell reached by stepping from cell in direction dir (the Direction ordinal),
+     * without any bounds check. Only meaningful when there is a passage in that direction.
+     */
+    public int neighbor(int cell, int dir){
+        return cell + offsets[dir];
+    }
+
+    public int neighborCount(int cell){
+        return Integer.bitCount(passages(cell));
+    }
+
+    /**
+     * @return the direction of the k-th passage of the cell, counted in N, S, E, W order
+     */
+    public int neighborDir(int cell, int k){
+        return NEIGHBOR_DIR[passages(cell)][k];
+    }
+
+    /**
+     * @return the k-th neighbor of the cell reachable through a passage, counted in N, S, E, W order
+     */
+    public int neighborAt(int cell, int k){
+        return neighbor(cell, neighborDir(cell, k));
+    }
+
+    /**
+     * @return the direction leading from cell to the adjacent cell other, or -1 if they are not adjacent
+     */
+    public int directionTo(int cell, int other){
+        int dx = x(other) - x(cell);
+        int dy = y(other) - y(cell);
+        Direction[] dirs = Direction.values();
+        for (int dir = 0; dir < dirs.length; dir++){
+            if (dirs[dir].dx == dx && dirs[dir].dy == dy){
+                return dir;
+            }
+        }
+        return -1;
+    }
+
+    static int opposite(int dir){
+        return dir ^ 1;
+    }
+
+    /**
+     * Opens the wall between the cell and its neighbor in direction dir on both sides.
+     */
+    public void carve(int cell, int dir){
+        or(cell, 1 << dir);
+        or(neighbor(cell, dir), 1 << opposite(dir));
+    }
+
+    /**
+     * Same as carve, but safe to call while other threads carve cells sharing the same word.
+     */
+    public void carveConcurrent(int cell, int dir){
+        orConcurrent(cell, 1 << dir);
+        orConcurrent(neighbor(cell, dir), 1 << opposite(dir));
+    }
+
+    /**
+     * A maze is perfect if there is exactly one path between any two cells: it is connected
+     * and has one passage less than cells. Solvers that only avoid stepping straight back
+     * (see NodeSolver) need this, in a maze with loops they would never stop.
+     *
+     * The answer is remembered until a passage changes, and MazeGenerator marks the mazes it
+     * generates as perfect, so only mazes read from elsewhere or edited are searched, once.
+     */
+    public boolean isPerfect(){
+        if (knownPerfect){
+            return true;
+        }
+        long passages = 0;
+        for (long word : words){
+            passages += Long.bitCount(word);
+        }
+        // every passage is stored in both of its cells
+        if (passages / 2 != size() - 1){
+            return false;
+        }
+        int[] queue = new int[size()];
+        boolean[] seen = new boolean[size()];
+        seen[0] = true;
+        int tail = 1;
+        for (int head = 0; head < tail; head++){
+            int cell = queue[head];
+            int neighbors = neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = neighborAt(cell, k);
+                if (!seen[next]){
+                    seen[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        knownPerfect = tail == size();
+        return knownPerfect;
+    }
+
+    /**
+     * @return true if the grid has no passage at all, as a new grid
+     */
+    boolean isEmpty(){
+        for (long word : words){
+            if (word != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that the maze is perfect without checking, for generators that only build perfect mazes.
+     */
+    void markPerfect(){
+        knownPerfect = true;
+    }
+
+    /**
+     * @return an independent grid with the same passages
+     */
+    public MazeGrid copy(){
+        MazeGrid copy = new MazeGrid(width, height);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        copy.knownPerfect = knownPerfect;
+        return copy;
+    }
+
+    /**
+     * Closes the wall between the cell and its neighbor in direction dir on both sides again.
+     */
+    public void closeWall(int cell, int dir){
+        andNot(cell, 1 << dir);
+        andNot(neighbor(cell, dir), 1 << opposite(dir));
+    }
+
+    void or(int cell, int bits){
+        changed();
+        words[cell / CELLS_PER_WORD] |= (long) bits << shift(cell);
+    }
+
+    void andNot(int cell, int bits){
+        changed();
+        words[cell / CELLS_PER_WORD] &= ~((long) bits << shift(cell));
+    }
+
+    void orConcurrent(int cell, int bits){
+        changed();
+        WORDS.getAndBitwiseOr(words, cell / CELLS_PER_WORD, (long) bits << shift(cell));
+    }
+
+    private void changed(){
+        // only written when set, so threads carving concurrently do not keep writing a shared field
+        if (knownPerfect){
+            knownPerfect = false;
+        }
+    }
+
+    private static int shift(int cell){
+        return (cell % CELLS_PER_WORD) * BITS_PER_CELL;
+    }
+}
@@ -0,0 +1,227 @@
+package com.stroby;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+/**
+ * Draws a maze and its solution into BufferedImages without going through Graphics: every
+ * pixel is computed from the passages of its cell and written straight into the int array
+ * behind the image. The picture is cut into square tiles that are rendered independently,
+ * so tiles can be drawn in parallel, exported one by one for mazes far too large for a
+ * single image, or drawn on demand for the visible part of a MazeViewport.
+ *
+ * The picture looks like SequentialMaze.display: every cell is cellPx pixels wide, walls are
+ * drawn on the north and west side of a cell, plus one wall along the east and south edge.
+ */
+public final class MazeRenderer {
+
+    public static final int TILE_PX = 512;
+
+    private static final int WHITE = 0xFFFFFF;
+    private static final int BLACK = 0x000000;
+    private static final int YELLOW = 0xFFFF00;
+    private static final int RED = 0xFF0000;
+    private static final int GREEN = 0x00FF00;
+
+    private final MazeView maze;
+    private final Point start;
+    private final Point end;
+    private final int cellPx;
+    private final int wallPx;
+    private long[] onPath; // bit per cell, null if no solution is shown
+
+    /**
+     * @param cellPx pixels per cell, at least 2 so there is room for the walls
+     */
+    public MazeRenderer(MazeView maze, Point start, Point end, int cellPx){
+        if (cellPx < 2){
+            throw new IllegalArgumentException("cellPx must be at least 2, but is " + cellPx);
+        }
+        this.maze = maze;
+        this.start = start;
+        this.end = end;
+        this.cellPx = cellPx;
+        this.wallPx = Math.max(1, cellPx / 4);
+    }
+
+    /**
+     * Shows the solution, which the renderer keeps as one bit per cell.
+     */
+    public void setSolution(CompactPath solution){
+        long[] bits = newPathBits();
+        CompactPath.Cursor cursor = solution.cursor();
+        mark(bits, cursor.x(), cursor.y());
+        while (cursor.hasNext()){
+            cursor.next();
+            mark(bits, cursor.x(), cursor.y());
+        }
+        onPath = bits;
+    }
+
+    public void setSolution(Point[] solution){
+        long[] bits = newPathBits();
+        for (Point p : solution){
+            mark(bits, p.getX(), p.getY());
+        }
+        onPath = bits;
+    }
+
+    private long[] newPathBits(){
+        return new long[(int) (((long) maze.getWidth() * maze.getHeight() + 63) >>> 6)];
+    }
+
+    private void mark(long[] bits, int x, int y){
+        long cell = (long) y * maze.getWidth() + x;
+        bits[(int) (cell >>> 6)] |= 1L << cell;
+    }
+
+    public int getCellPx() {
+        return cellPx;
+    }
+
+    public int getImageWidth(){
+        return maze.getWidth() * cellPx + wallPx;
+    }
+
+    public int getImageHeight(){
+        return maze.getHeight() * cellPx + wallPx;
+    }
+
+    public int getTilesX(){
+        return (getImageWidth() + TILE_PX - 1) / TILE_PX;
+    }
+
+    public int getTilesY(){
+        return (getImageHeight() + TILE_PX - 1) / TILE_PX;
+    }
+
+    public BufferedImage renderTile(int tileX, int tileY){
+        int left = tileX * TILE_PX;
+        int top = tileY * TILE_PX;
+        return render(left, top, Math.min(TILE_PX, getImageWidth() - left), Math.min(TILE_PX, getImageHeight() - top));
+    }
+
+    /**
+     * Renders the given pixel rectangle of the picture.
+     */
+    public BufferedImage render(int left, int top, int width, int height){
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < height; row++){
+            renderRow(pixels, row * width, left, top + row, width);
+        }
+        return image;
+    }
+
+    /**
+     * Renders the whole picture into one image, in parallel over bands of rows.
+     */
+    public BufferedImage render(int threads){
+        int width = getImageWidth();
+        int height = getImageHeight();
+        if ((long) width * height > Integer.MAX_VALUE - 8){
+            throw new IllegalArgumentException("A " + width + "x" + height + " picture does not fit into one image, export it in tiles");
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int bands = (height + TILE_PX - 1) / TILE_PX;
+        Parallel.forEach(threads, bands, b -> {
+            int last = Math.min(height, (b + 1) * TILE_PX);
+            for (int y = b * TILE_PX; y < last; y++){
+                renderRow(pixels, y * width, 0, y, width);
+            }
+        });
+        return image;
+    }
+
+    private void renderRow(int[] pixels, int offset, int left, int y, int width){
+        int mazeWidth = maze.getWidth();
+        int mazeHeight = maze.getHeight();
+        int cellY = y / cellPx;
+        int inY = y % cellPx;
+        if (cellY >= mazeHeight){
+            // south edge of the maze
+            Arrays.fill(pixels, offset, offset + width, BLACK);
+            return;
+        }
+
+        int x = left;
+        int lastX = left + width;
+        while (x < lastX){
+            int cellX = x / cellPx;
+            int cellEnd = Math.min(lastX, (cellX + 1) * cellPx);
+            if (cellX >= mazeWidth){
+                // east edge of the maze
+                Arrays.fill(pixels, offset + x - left, offset + cellEnd - left, BLACK);
+                x = cellEnd;
+                continue;
+            }
+            int passages = maze.passages(cellX, cellY);
+            int floor = floorColor(cellX, cellY);
+            boolean northWall = (passages & Direction.N.bit) == 0;
+            boolean westWall = (passages & Direction.W.bit) == 0;
+            for (; x < cellEnd; x++){
+                int inX = x % cellPx;
+                boolean wall;
+                if (inY < wallPx){
+                    // the corner posts are always drawn, like the overlapping rectangles of SequentialMaze.display
+                    wall = northWall || inX < wallPx;
+                } else {
+                    wall = westWall && inX < wallPx;
+                }
+                pixels[offset + x - left] = wall ? BLACK : floor;
+            }
+        }
+    }
+
+    private int floorColor(int x, int y){
+        if (x == start.getX() && y == start.getY()){
+            return RED;
+        }
+        if (x == end.getX() && y == end.getY()){
+            return GREEN;
+        }
+        if (onPath != null){
+            long cell = (long) y * maze.getWidth() + x;
+            if ((onPath[(int) (cell >>> 6)] & (1L << cell)) != 0){
+                return YELLOW;
+            }
+        }
+        return WHITE;
+    }
+
+    /**
+     * Writes the picture as one PNG file per tile, named tile_x_y.png, rendering and
+     * encoding the tiles in parallel. Works headless and for pictures of any size.
+     */
+    public void exportTiles(Path directory, int threads) throws IOException {
+        Files.createDirectories(directory);
+        int tilesX = getTilesX();
+        try {
+            Parallel.forEach(threads, tilesX * getTilesY(), t -> {
+                int tileX = t % tilesX;
+                int tileY = t / tilesX;
+                try {
+                    ImageIO.write(renderTile(tileX, tileY), "png", directory.resolve("tile_" + tileX + "_" + tileY + ".png").toFile());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the whole picture as a single PNG file.
+     */
+    public void exportPng(Path file, int threads) throws IOException {
+        ImageIO.write(render(threads), "png", file.toFile());
+    }
+}
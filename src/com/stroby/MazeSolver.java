@@ -0,0 +1,35 @@
+package com.stroby;
+
+/**
+ * A solver that keeps no state between calls, so one instance can solve any number of
+ * mazes at the same time.
+ */
+@FunctionalInterface
+public interface MazeSolver {
+
+    /**
+     * @return the path from start to end as cell indices, or null if end can not be reached
+     */
+    int[] solve(MazeGrid grid, int start, int end);
+
+    /**
+     * @param name one of node, cooperative, tiled, bidirectional, forkjoin, branch, deadend, bfs, astar, junction, tree
+     * @param threads threads used for one maze by the multi threaded solvers
+     */
+    static MazeSolver byName(String name, int threads){
+        switch (name){
+            case "node": return (grid, start, end) -> new NodeSolver(grid, start, end).solveMazeIntera();
+            case "cooperative": return (grid, start, end) -> CooperativeSolver.solve(grid, start, end, threads);
+            case "tiled": return (grid, start, end) -> TiledSolver.solve(grid, start, end, threads);
+            case "bidirectional": return BidirectionalSolver::solve;
+            case "forkjoin": return (grid, start, end) -> ForkJoinSolver.solve(grid, start, end, threads);
+            case "branch": return (grid, start, end) -> BranchExplorerSolver.solve(grid, start, end, threads);
+            case "deadend": return (grid, start, end) -> DeadEndFillingSolver.solve(grid, start, end, threads);
+            case "bfs": return (grid, start, end) -> ParallelBfsSolver.solve(grid, start, end, threads);
+            case "astar": return AStarSolver::solve;
+            case "junction": return (grid, start, end) -> JunctionGraph.build(grid, start, end).solve();
+            case "tree": return (grid, start, end) -> TreePathIndex.build(grid).path(start, end);
+            default: throw new IllegalArgumentException("Unknown solver " + name);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.stroby;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exports mazes as the ASCII art of SequentialMaze.print and reads them back. Every row of
+ * cells becomes two lines of the same length, so the text of a band of rows can be rendered
+ * into its own byte buffer without looking at any other band. Bands are rendered in parallel
+ * a few at a time and then written in order through one channel, which keeps the memory
+ * needed bounded no matter how large the maze is.
+ *
+ * Reading relies on the same fixed line length: the file is mapped, and the bands are parsed
+ * in parallel, each cell taking its passages from the lines around it.
+ */
+public final class MazeText {
+
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final byte[] NORTH_WALL = "+---".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NORTH_PASSAGE = "+   ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEST_WALL = "|   ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEST_PASSAGE = "    ".getBytes(StandardCharsets.US_ASCII);
+
+    private MazeText() {}
+
+    public static void write(MazeView maze, Path file, int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            write(maze, channel, threads);
+        }
+    }
+
+    /**
+     * Writes to the stream without closing it, e.g. to System.out.
+     */
+    public static void write(MazeView maze, OutputStream out, int threads) throws IOException {
+        write(maze, Channels.newChannel(out), threads);
+        out.flush();
+    }
+
+    public static void write(MazeView maze, WritableByteChannel out, int threads) throws IOException {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        int lineBytes = lineBytes(width);
+        int rowsPerChunk = Math.max(1, CHUNK_BYTES / (2 * lineBytes));
+        int chunks = (height + rowsPerChunk - 1) / rowsPerChunk;
+        int wave = Math.max(1, threads) * 2;
+
+        ByteBuffer[] buffers = new ByteBuffer[wave];
+        for (int first = 0; first < chunks; first += wave){
+            int firstChunk = first;
+            int count = Math.min(wave, chunks - first);
+            Parallel.forEach(threads, count, i -> {
+                int top = (firstChunk + i) * rowsPerChunk;
+                int rows = Math.min(rowsPerChunk, height - top);
+                if (buffers[i] == null){
+                    buffers[i] = ByteBuffer.allocate(rowsPerChunk * 2 * lineBytes);
+                }
+                ByteBuffer buffer = buffers[i];
+                buffer.clear();
+                for (int y = top; y < top + rows; y++){
+                    renderRow(maze, y, buffer);
+                }
+                buffer.flip();
+            });
+            for (int i = 0; i < count; i++){
+                writeFully(out, buffers[i]);
+            }
+        }
+
+        // the bottom line
+        ByteBuffer bottom = ByteBuffer.allocate(lineBytes);
+        for (int x = 0; x < width; x++){
+            bottom.put(NORTH_WALL);
+        }
+        bottom.put((byte) '+').put((byte) '\n').flip();
+        writeFully(out, bottom);
+    }
+
+    private static int lineBytes(int width){
+        return 4 * width + 2;
+    }
+
+    private static void renderRow(MazeView maze, int y, ByteBuffer buffer){
+        int width = maze.getWidth();
+        // draw the north edges
+        for (int x = 0; x < width; x++){
+            buffer.put((maze.passages(x, y) & Direction.N.bit) == 0 ? NORTH_WALL : NORTH_PASSAGE);
+        }
+        buffer.put((byte) '+').put((byte) '\n');
+        // draw the west edges and the far east edge
+        for (int x = 0; x < width; x++){
+            buffer.put((maze.passages(x, y) & Direction.W.bit) == 0 ? WEST_WALL : WEST_PASSAGE);
+        }
+        buffer.put((byte) '|').put((byte) '\n');
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()){
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the solution as "Solution: (x, y)(x, y)...", like SequentialMaze.printSolution.
+     */
+    public static void writeSolution(Point[] solution, OutputStream out, int threads) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(out);
+        writeFully(channel, ByteBuffer.wrap("Solution: ".getBytes(StandardCharsets.US_ASCII)));
+        int pointsPerChunk = CHUNK_BYTES / 32;
+        int chunks = (solution.length + pointsPerChunk - 1) / pointsPerChunk;
+        int wave = Math.max(1, threads) * 2;
+        byte[][] texts = new byte[wave][];
+        for (int first = 0; first < chunks; first += wave){
+            int firstChunk = first;
+            int count = Math.min(wave, chunks - first);
+            Parallel.forEach(threads, count, i -> {
+                StringBuilder text = new StringBuilder(pointsPerChunk * 16);
+                int last = Math.min(solution.length, (firstChunk + i + 1) * pointsPerChunk);
+                for (int p = (firstChunk + i) * pointsPerChunk; p < last; p++){
+                    text.append('(').append(solution[p].getX()).append(", ").append(solution[p].getY()).append(')');
+                }
+                texts[i] = text.toString().getBytes(StandardCharsets.US_ASCII);
+            });
+            for (int i = 0; i < count; i++){
+                writeFully(channel, ByteBuffer.wrap(texts[i]));
+            }
+        }
+        writeFully(channel, ByteBuffer.wrap(new byte[]{'\n'}));
+        out.flush();
+    }
+
+    /**
+     * Reads a maze written by write (or printed by SequentialMaze.print).
+     */
+    public static MazeGrid read(Path file, int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if (channel.size() > Integer.MAX_VALUE){
+                throw new IOException(file + " is too large to be read as text, use MazeFile for mazes of this size");
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), threads);
+        }
+    }
+
+    public static MazeGrid read(ByteBuffer text, int threads) throws IOException {
+        int size = text.limit();
+        int lineBytes = 0;
+        while (lineBytes < size && text.get(lineBytes) != '\n'){
+            lineBytes++;
+        }
+        lineBytes++;
+        if (lineBytes < 6 || (lineBytes - 2) % 4 != 0 || (size - lineBytes) % (2 * lineBytes) != 0 || size == lineBytes){
+            throw new IOException("Not a maze in text form, lines must be 4 * width + 1 characters long");
+        }
+        int width = (lineBytes - 2) / 4;
+        int height = (size - lineBytes) / (2 * lineBytes);
+        MazeGrid grid = new MazeGrid(width, height);
+        int line = lineBytes;
+
+        int rowsPerChunk = Math.max(1, CHUNK_BYTES / (2 * lineBytes));
+        int chunks = (height + rowsPerChunk - 1) / rowsPerChunk;
+        try {
+            Parallel.forEach(threads, chunks, c -> {
+                int last = Math.min(height, (c + 1) * rowsPerChunk);
+                for (int y = c * rowsPerChunk; y < last; y++){
+                    int north = 2 * y * line;
+                    int west = north + line;
+                    int south = west + line; // the north line of the next row, or the bottom line
+                    for (int x = 0; x < width; x++){
+                        int bits = 0;
+                        if (isOpen(text, north + 4 * x + 1, '-')){
+                            bits |= Direction.N.bit;
+                        }
+                        if (isOpen(text, south + 4 * x + 1, '-')){
+                            bits |= Direction.S.bit;
+                        }
+                        if (isOpen(text, west + 4 * x, '|')){
+                            bits |= Direction.W.bit;
+                        }
+                        if (isOpen(text, west + 4 * (x + 1), '|')){
+                            bits |= Direction.E.bit;
+                        }
+                        // cells at the border of two chunks can share a word of the grid
+                        grid.orConcurrent(grid.index(x, y), bits);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return grid;
+    }
+
+    private static boolean isOpen(ByteBuffer text, int offset, char wall){
+        byte c = text.get(offset);
+        if (c == ' '){
+            return true;
+        }
+        if (c != wall){
+            throw new UncheckedIOException(new IOException("Unexpected character '" + (char) c + "' at offset " + offset));
+        }
+        return false;
+    }
+}
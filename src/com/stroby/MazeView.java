@@ -0,0 +1,17 @@
+package com.stroby;
+
+/**
+ * Read only access to the passages of a maze, no matter where they are stored
+ * (on the heap in a MazeGrid or in a memory mapped maze file).
+ */
+public interface MazeView {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * @return the passage bits of the cell at (x, y), one bit per Direction
+     */
+    int passages(int x, int y);
+}
@@ -0,0 +1,164 @@
+package com.stroby;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Shows a maze of any size inside a JScrollPane. Only the tiles intersecting the visible
+ * area are rendered when they are needed, and the most recently used tiles are cached, so
+ * scrolling through a 10000x10000 maze never draws the whole picture. The mouse wheel with
+ * Ctrl held down zooms in and out.
+ *
+ * Tiles are rendered in parallel on a pool that lives as long as the application, never on
+ * the Swing thread: a missing tile is drawn as a placeholder and repainted once it is ready.
+ */
+@SuppressWarnings("serial")
+public final class MazeViewport extends JPanel {
+
+    private static final int MAX_CACHED_TILES = 256;
+    private static final Color PLACEHOLDER = new Color(0xE0E0E0);
+    private static final ExecutorService RENDER_POOL = Executors.newFixedThreadPool(Parallel.threads(), task -> {
+        Thread thread = new Thread(task, "maze-tile-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MazeView maze;
+    private final Point start;
+    private final Point end;
+    private Point[] solution;
+    // replaced on zoom, tiles rendered with an older renderer are dropped
+    private volatile MazeRenderer renderer;
+
+    // tile (y << 32 | x) -> image, in access order so the eldest entry is the least recently used one
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    // tiles submitted to the render pool and not back yet, only touched on the Swing thread
+    private final Set<Long> pending = new HashSet<>();
+
+    public MazeViewport(MazeView maze, Point start, Point end, int cellPx){
+        this.maze = maze;
+        this.start = start;
+        this.end = end;
+        setZoom(cellPx);
+        addMouseWheelListener(e -> {
+            if (e.isControlDown()){
+                setZoom(Math.max(2, renderer.getCellPx() - e.getWheelRotation()));
+            } else if (getParent() != null){
+                getParent().dispatchEvent(e);
+            }
+        });
+    }
+
+    /**
+     * @return the viewport inside a scroll pane, ready to be added to a frame
+     */
+    public JScrollPane inScrollPane(){
+        JScrollPane scrollPane = new JScrollPane(this);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(MazeRenderer.TILE_PX / 8);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(MazeRenderer.TILE_PX / 8);
+        return scrollPane;
+    }
+
+    public void setSolution(Point[] solution){
+        this.solution = solution;
+        // a new renderer, so tiles still being rendered with the old solution are dropped
+        MazeRenderer solved = new MazeRenderer(maze, start, end, renderer.getCellPx());
+        solved.setSolution(solution);
+        renderer = solved;
+        tiles.clear();
+        pending.clear();
+        repaint();
+    }
+
+    public void setZoom(int cellPx){
+        if (renderer != null && renderer.getCellPx() == cellPx){
+            return;
+        }
+        MazeRenderer zoomed = new MazeRenderer(maze, start, end, cellPx);
+        if (solution != null){
+            zoomed.setSolution(solution);
+        }
+        renderer = zoomed;
+        tiles.clear();
+        pending.clear();
+        setPreferredSize(new Dimension(renderer.getImageWidth(), renderer.getImageHeight()));
+        revalidate();
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        super.paintComponent(graphics);
+        Rectangle visible = graphics.getClipBounds();
+        if (visible == null){
+            visible = getVisibleRect();
+        }
+        int firstX = Math.max(0, visible.x / MazeRenderer.TILE_PX);
+        int firstY = Math.max(0, visible.y / MazeRenderer.TILE_PX);
+        int lastX = Math.min(renderer.getTilesX() - 1, (visible.x + visible.width - 1) / MazeRenderer.TILE_PX);
+        int lastY = Math.min(renderer.getTilesY() - 1, (visible.y + visible.height - 1) / MazeRenderer.TILE_PX);
+        if (lastX < firstX || lastY < firstY){
+            return;
+        }
+
+        // draw the cached tiles, and placeholders for the missing ones until the pool has rendered them
+        for (int tileY = firstY; tileY <= lastY; tileY++){
+            for (int tileX = firstX; tileX <= lastX; tileX++){
+                BufferedImage tile = tiles.get(key(tileX, tileY));
+                if (tile != null){
+                    graphics.drawImage(tile, tileX * MazeRenderer.TILE_PX, tileY * MazeRenderer.TILE_PX, null);
+                } else {
+                    graphics.setColor(PLACEHOLDER);
+                    graphics.fillRect(tileX * MazeRenderer.TILE_PX, tileY * MazeRenderer.TILE_PX, MazeRenderer.TILE_PX, MazeRenderer.TILE_PX);
+                    render(tileX, tileY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the tile on the pool unless it is already on its way, and repaints it when it is done.
+     */
+    private void render(int tileX, int tileY){
+        long key = key(tileX, tileY);
+        if (!pending.add(key)){
+            return;
+        }
+        MazeRenderer current = renderer;
+        RENDER_POOL.execute(() -> {
+            if (current != renderer){
+                return; // zoomed or solution changed while the tile was queued
+            }
+            BufferedImage tile = current.renderTile(tileX, tileY);
+            SwingUtilities.invokeLater(() -> {
+                if (current != renderer){
+                    return;
+                }
+                pending.remove(key);
+                tiles.put(key, tile);
+                repaint(tileX * MazeRenderer.TILE_PX, tileY * MazeRenderer.TILE_PX, MazeRenderer.TILE_PX, MazeRenderer.TILE_PX);
+            });
+        });
+    }
+
+    private static long key(int tileX, int tileY){
+        return (long) tileY << 32 | tileX;
+    }
+}
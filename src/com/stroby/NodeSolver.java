@@ -1,101 +1,324 @@
 package com.stroby;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class NodeSolver {
 
-    public static void run(){
+    /**
+     * Runs every solver on the maze one after the other, printing their times and checking their paths.
+     */
+    public static void run(SequentialMaze maze, SolverMetrics metrics){
+        Stopwatch timer = new Stopwatch();
 
-        Node[][] nodes = NodeSolver.convertMaze( Main.maze);
-        NodeSolver.start = nodes[ Main.width-1][0];
-        NodeSolver.end = nodes[0][ Main.height-1];
+        MazeGrid grid = metrics.time("convert", () -> NodeSolver.convertMaze(maze));
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        NodeSolver solver = new NodeSolver(grid, start, end);
 
         System.out.println("Node Single Thread");
-        Main.StartTimer();
-        Node[] path = NodeSolver.solveMazeIntera();
-        Main.TimeCheck();
-        Point[] mySolution = NodeSolver.convertSolution(path);
-        Main.maze.checkSolution(mySolution);
+        timer.start();
+        int[] path = metrics.time("solve Node Single Thread",
+                () -> solver.solveMazeIntera(metrics.thread("Node Single Thread", "main")));
+        timer.check();
+        check(grid, path, start, end, metrics);
 
-        if ( Main.width *  Main.height <= 100 * 100){
+        System.out.println("Node Single Thread Compact");
+        timer.start();
+        CompactPath compact = metrics.time("solve Node Single Thread Compact",
+                () -> solver.solveMazeCompact(metrics.thread("Node Single Thread Compact", "main")));
+        timer.check();
+        check(grid, compact, maze.getStart(), maze.getEnd(), metrics);
+
+        if (grid.size() <= 100 * 100){
             System.out.println("Node Single Thread Recursiv");
-            Main.StartTimer();
-            Node[] path2 = NodeSolver.solveMazeRecursiv(NodeSolver.start, new Node[ Main.width *  Main.height], 0);
-            Main.TimeCheck();
-            Point[] mySolution2 = NodeSolver.convertSolution(path2);
-            Main.maze.checkSolution(mySolution2);
+            timer.start();
+            int[] path2 = metrics.time("solve Node Single Thread Recursiv",
+                    () -> solver.solveMazeRecursiv(start, new int[grid.size()], 0, metrics.thread("Node Single Thread Recursiv", "main")));
+            timer.check();
+            check(grid, path2, start, end, metrics);
         }
 
         System.out.println("Node Multi 3 Thread");
-        Main.StartTimer();
-        NodeSolver.solveMazeMulti(3, new int[][]{
-                new int[]{0},
-                new int[]{1},
-                new int[]{2},
+        timer.start();
+        SolveRace race = metrics.time("solve Node Multi 3 Thread", () -> {
+            SolveRace started = solver.solveAsync(new int[][]{
+                    new int[]{0},
+                    new int[]{1},
+                    new int[]{2},
+            }, Duration.ofMinutes(10), metrics);
+            // wait for the race to end either way, its outcome is looked at below
+            started.result().handle((result, failure) -> null).join();
+            return started;
         });
+        timer.check();
+        // the progress the losing threads had made when they were stopped
+        for (SolveControl control : race.controls()){
+            System.out.println(control);
+        }
+        try {
+            int[] path1 = race.result().join();
+            if (path1 != null){
+                check(grid, path1, start, end, metrics);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException){
+                System.out.println("Time out!");
+            } else {
+                throw e;
+            }
+        }
 
-        System.out.println("Nodes done");
-    }
+        System.out.println("Cooperative 3 Thread");
+        timer.start();
+        CompactPath path3 = metrics.time("solve Cooperative 3 Thread",
+                () -> CooperativeSolver.solveCompact(grid, start, end, 3, metrics));
+        timer.check();
+        check(grid, path3, maze.getStart(), maze.getEnd(), metrics);
+
+        System.out.println("Tiled 3 Thread");
+        timer.start();
+        int[] path4 = metrics.time("solve Tiled 3 Thread",
+                () -> TiledSolver.solve(grid, start, end, 3, TiledSolver.DEFAULT_TILE_SIZE, metrics));
+        timer.check();
+        check(grid, path4, start, end, metrics);
 
-    public static Node[][] convertMaze(SequentialMaze maze){
+        System.out.println("Bidirectional 2 Thread");
+        timer.start();
+        int[] path5 = metrics.time("solve Bidirectional 2 Thread", () -> BidirectionalSolver.solve(grid, start, end, metrics));
+        timer.check();
+        check(grid, path5, start, end, metrics);
 
-        Node[][] nodes = new Node[Main.width][Main.height];
+        System.out.println("Fork Join 3 Thread");
+        timer.start();
+        CompactPath path6 = metrics.time("solve Fork Join 3 Thread", () -> ForkJoinSolver.solveCompact(grid, start, end, 3, metrics));
+        timer.check();
+        check(grid, path6, maze.getStart(), maze.getEnd(), metrics);
 
-        for (int i = 0; i < Main.width; i++){
-            for (int j = 0; j < Main.height; j++){
-                nodes[i][j] = new Node(i, j, maze);
+        System.out.println("Branch Explorer " + (BranchExplorerSolver.virtualThreadsAvailable() ? "Virtual" : "Platform") + " Threads");
+        timer.start();
+        CompactPath path9 = metrics.time("solve Branch Explorer", () -> BranchExplorerSolver.solveCompact(grid, start, end, metrics));
+        timer.check();
+        check(grid, path9, maze.getStart(), maze.getEnd(), metrics);
+
+        System.out.println("Dead End Filling " + (DeadEndFillingSolver.isVectorized() ? "Vector" : "Scalar") + " 3 Thread");
+        timer.start();
+        int[] path10 = metrics.time("solve Dead End Filling 3 Thread", () -> DeadEndFillingSolver.solve(grid, start, end, 3));
+        timer.check();
+        check(grid, path10, start, end, metrics);
+
+        System.out.println("Parallel BFS 3 Thread");
+        timer.start();
+        int[] path11 = metrics.time("solve Parallel BFS 3 Thread", () -> ParallelBfsSolver.solve(grid, start, end, 3));
+        timer.check();
+        check(grid, path11, start, end, metrics);
+
+        System.out.println("Parallel BFS Braided 3 Thread");
+        MazeGrid braided = grid.copy();
+        metrics.time("generate Braided", () -> MazeGenerator.braid(braided, maze.getSeed(), 0.5, 3));
+        timer.start();
+        int[] path12 = metrics.time("solve Parallel BFS Braided 3 Thread", () -> ParallelBfsSolver.solve(braided, start, end, 3));
+        timer.check();
+        System.out.println("shortest path " + path12.length + " cells, " + path11.length + " before braiding");
+        check(braided, path12, start, end, metrics);
+
+        System.out.println("A* Braided");
+        timer.start();
+        int[] path13 = metrics.time("solve A* Braided",
+                () -> AStarSolver.solve(braided, start, end, null, metrics.thread("A* Braided", "main")));
+        timer.check();
+        check(braided, path13, start, end, metrics);
+
+        System.out.println("Junction Graph");
+        timer.start();
+        JunctionGraph junctions = metrics.time("convert Junction Graph", () -> JunctionGraph.build(grid, start, end));
+        timer.check();
+        timer.start();
+        int[] path7 = metrics.time("solve Junction Graph", () -> junctions.solve(metrics.thread("Junction Graph", "main")));
+        timer.check();
+        System.out.println(junctions.nodeCount() + " nodes, " + junctions.edgeCount() + " edges");
+        check(grid, path7, start, end, metrics);
+
+        System.out.println("Tree Path Index");
+        timer.start();
+        TreePathIndex pathIndex = metrics.time("convert Tree Path Index", () -> TreePathIndex.build(grid));
+        timer.check();
+        timer.start();
+        int[] path8 = metrics.time("solve Tree Path Index", () -> pathIndex.path(start, end));
+        timer.check();
+        check(grid, path8, start, end, metrics);
+
+        System.out.println("Mapped Wall Follower");
+        try {
+            Path file = Files.createTempFile("maze", ".bin");
+            try {
+                MazeFile.write(file, maze);
+                try (MappedMaze mapped = MappedMaze.open(file)){
+                    timer.start();
+                    CompactPath steps = metrics.time("solve Mapped Wall Follower",
+                            () -> WallFollowerSolver.solve(mapped, mapped.getStart(), mapped.getEnd()));
+                    timer.check();
+                    check(mapped, steps, mapped.getStart(), mapped.getEnd(), metrics);
+                }
+
+                System.out.println("Distributed 3 Worker Processes");
+                timer.start();
+                Point[] distributed = metrics.time("solve Distributed 3 Worker Processes", () -> DistributedSolver.solve(file, 3));
+                timer.check();
+                check(grid, distributed, start, end, metrics);
+            } finally {
+                Files.delete(file);
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
 
-        for (int i = 0; i < Main.width; i++){
-            for (int j = 0; j < Main.height; j++){
-                nodes[i][j].updateNeigbors(nodes);
+        System.out.println("Incremental 1000 Wall Edits");
+        MazeGrid edited = grid.copy();
+        IncrementalSolver incremental = metrics.time("convert Incremental", () -> new IncrementalSolver(edited, start, end));
+        timer.start();
+        metrics.time("solve Incremental", () -> {
+            SplittableRandom random = new SplittableRandom(maze.getSeed());
+            for (int i = 0; i < 1000; i++){
+                // edits between two cells of the same row, so the neighbor always exists; two openings per closing
+                int cell = grid.index(random.nextInt(grid.getWidth() - 1), random.nextInt(grid.getHeight()));
+                if (random.nextInt(3) != 0){
+                    incremental.open(cell, Direction.E.ordinal());
+                } else {
+                    incremental.close(cell, Direction.E.ordinal());
+                }
             }
+        });
+        timer.check();
+        if (incremental.isSolved()){
+            check(edited, incremental.path(), start, end, metrics);
+        } else {
+            System.out.println("end not reachable after the edits");
+        }
+
+        System.out.println("Nodes done");
+    }
+
+    /**
+     * The packed grid already answers every neighbor query by index arithmetic,
+     * so no per cell objects have to be built anymore.
+     */
+    public static MazeGrid convertMaze(SequentialMaze maze){
+        return maze.getGrid();
+    }
+
+    private final MazeGrid grid;
+    private final int start;
+    private final int end;
+
+    /**
+     * @param grid a perfect maze, see MazeGrid.isPerfect, which only searches the maze if it was not generated as perfect
+     */
+    public NodeSolver(MazeGrid grid, int start, int end){
+        if (!grid.isPerfect()){
+            throw new IllegalArgumentException("NodeSolver needs a perfect maze, use ParallelBfsSolver for mazes with loops");
+        }
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+    }
+
+    public NodeSolver(SequentialMaze maze){
+        this(convertMaze(maze), maze.getGrid().index(maze.getStart()), maze.getGrid().index(maze.getEnd()));
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int[] solveMazeRecursiv(int current, int[] path, int pathIndex){
+        return solveMazeRecursiv(current, path, pathIndex, null);
+    }
+    public int[] solveMazeRecursiv(int current, int[] path, int pathIndex, ThreadStats stats){
+        Recursion recursion = new Recursion(path);
+        int[] solution = recursion.descend(current, pathIndex);
+        if (stats != null){
+            stats.record(recursion.visited, recursion.backtracks, recursion.peakDepth);
         }
-        return nodes;
+        return solution;
     }
+    /**
+     * One recursive search, holding the path and the counters in fields so every stack frame
+     * only carries the cell and its depth.
+     */
+    private final class Recursion {
+        private final int[] path;
+        private long visited;
+        private long backtracks;
+        private int peakDepth;
 
-    public static Node start;
-    public static Node end;
-    public static Node[] solveMazeRecursiv(Node current, Node[] path, int pathIndex){
-        path[pathIndex] = current;
-        if (current.equals(end)){
-            return path;
+        Recursion(int[] path){
+            this.path = path;
         }
 
-        Node[] neigbors = current.getNeigbors();
-        for (int i = 0; i < neigbors.length; i++){
-            if (pathIndex > 1 && path[pathIndex - 1].equals(neigbors[i])) {continue;}
-            Node[] solution = solveMazeRecursiv(neigbors[i], path, pathIndex + 1);
-            if (solution != null){
-                return solution;
+        int[] descend(int current, int pathIndex){
+            path[pathIndex] = current;
+            visited++;
+            peakDepth = Math.max(peakDepth, pathIndex);
+            if (current == end){
+                return Arrays.copyOf(path, pathIndex + 1);
+            }
+
+            int neigbors = grid.neighborCount(current);
+            for (int i = 0; i < neigbors; i++){
+                int neigbor = grid.neighborAt(current, i);
+                if (pathIndex > 0 && path[pathIndex - 1] == neigbor) {continue;}
+                int[] solution = descend(neigbor, pathIndex + 1);
+                if (solution != null){
+                    return solution;
+                }
             }
+            backtracks++;
+            return null;
         }
-        path[pathIndex] = null;
-        return null;
     }
-    public static Node[] solveMazeIntera(){
-        Node[] path = new Node[Main.width * Main.height];
+    public int[] solveMazeIntera(){
+        return solveMazeIntera(null);
+    }
+    public int[] solveMazeIntera(ThreadStats stats){
+        int[] path = new int[grid.size()];
         path[0] = start;
-        int[] stack = new int[Main.width * Main.height];
+        int[] stack = new int[grid.size()];
+        long visited = 1;
+        long backtracks = 0;
+        int peakDepth = 0;
 
         int index = 0;
-        while (!path[index].equals(end)){
+        while (path[index] != end){
 
-            Node[] neigbors = path[index].getNeigbors();
-            if (stack[index] >= neigbors.length){
+            int current = path[index];
+            if (stack[index] >= grid.neighborCount(current)){
                 stack[index] = 0;
-                path[index] = null;
                 index--;
+                backtracks++;
 
             }else {
-                if (!(index != 0 && neigbors[stack[index]].equals(path[index-1]))){
-                    path[index + 1] = neigbors[stack[index]];
+                int neigbor = grid.neighborAt(current, stack[index]);
+                if (!(index != 0 && neigbor == path[index-1])){
+                    path[index + 1] = neigbor;
                     stack[index]++;
                     index++;
+                    visited++;
+                    peakDepth = Math.max(peakDepth, index);
                 }else {
                     stack[index]++;
                 }
@@ -103,84 +326,180 @@ public class NodeSolver {
 
         }
 
-        return path;
+        if (stats != null){
+            stats.record(visited, backtracks, peakDepth);
+        }
+        return Arrays.copyOf(path, index + 1);
+    }
+    /**
+     * The same depth first search as solveMazeIntera, with the path kept as a CompactPath.Builder
+     * instead of two int arrays the size of the maze. The last step tells where the search came
+     * from, and after stepping back it goes on with the passage after the one it came back
+     * through, so 2 bits per step are all the state the search needs.
+     * @return the path from start to end, or null if end can not be reached
+     */
+    public CompactPath solveMazeCompact(ThreadStats stats){
+        CompactPath.Builder path = new CompactPath.Builder(grid.x(start), grid.y(start));
+        long visited = 1;
+        long backtracks = 0;
+        int peakDepth = 0;
+
+        int current = start;
+        int nextDir = 0; // first direction still to try in the current cell
+        while (current != end){
+            int passages = grid.passages(current);
+            int back = path.length() == 0 ? -1 : MazeGrid.opposite(path.last());
+            int dir = nextDir;
+            while (dir < 4 && ((passages & (1 << dir)) == 0 || dir == back)){
+                dir++;
+            }
+            if (dir < 4){
+                path.add(dir);
+                current = grid.neighbor(current, dir);
+                nextDir = 0;
+                visited++;
+                peakDepth = Math.max(peakDepth, path.length());
+            } else if (path.length() == 0){
+                // back on start with every passage tried
+                if (stats != null){
+                    stats.record(visited, backtracks, peakDepth);
+                }
+                return null;
+            } else {
+                int last = path.last();
+                path.removeLast();
+                current = grid.neighbor(current, MazeGrid.opposite(last));
+                nextDir = last + 1;
+                backtracks++;
+            }
+        }
+
+        if (stats != null){
+            stats.record(visited, backtracks, peakDepth);
+        }
+        return path.build();
+    }
+    public int[] solveMazeIteraWithRule(int[] rule){
+        return solveMazeIteraWithRule(rule, null);
+    }
+    public int[] solveMazeIteraWithRule(int[] rule, ThreadStats stats){
+        return solveMazeIteraWithRule(rule, stats, null);
     }
-    public static Node[] solveMazeIteraWithRule(int[] rule){
-        Node[] path = new Node[Main.width * Main.height];
+    /**
+     * @param control if not null, gets the progress every SolveControl.CHECK_INTERVAL steps and can stop the search
+     * @return the path, or null if the control stopped the search first
+     */
+    public int[] solveMazeIteraWithRule(int[] rule, ThreadStats stats, SolveControl control){
+        int[] path = new int[grid.size()];
         path[0] = start;
-        int[] stack = new int[Main.width * Main.height];
+        int[] stack = new int[grid.size()];
+        long visited = 1;
+        long backtracks = 0;
+        int peakDepth = 0;
+        int untilCheck = SolveControl.CHECK_INTERVAL;
 
         int index = 0;
-        while (!path[index].equals(end)){
-            Node[] neigbors = path[index].getNeigbors();
+        while (path[index] != end){
+            if (--untilCheck == 0){
+                untilCheck = SolveControl.CHECK_INTERVAL;
+                if (control != null && control.checkpoint(visited, index)){
+                    if (stats != null){
+                        stats.record(visited, backtracks, peakDepth);
+                    }
+                    return null;
+                }
+            }
+            int current = path[index];
 
-            int neigborLenght = neigbors.length;
+            int neigborLenght = grid.neighborCount(current);
             int ruleValue = rule[index % rule.length];
             int stackValue = stack[index] + ruleValue;
 
             if(stackValue >= neigborLenght + ruleValue){
                 stack[index] = 0;
-                path[index] = null;
                 index--;
+                backtracks++;
             } else  {
                 while (stackValue >= neigborLenght){
                     stackValue -= neigborLenght;
                 }
                 stack[index]++;
 
-                if (!(index != 0 && neigbors[stackValue].equals(path[index - 1]))){
-                    path[index + 1] = neigbors[stackValue];
+                int neigbor = grid.neighborAt(current, stackValue);
+                if (!(index != 0 && neigbor == path[index - 1])){
+                    path[index + 1] = neigbor;
                     index++;
+                    visited++;
+                    peakDepth = Math.max(peakDepth, index);
                 }
             }
         }
 
-        return path;
+        if (stats != null){
+            stats.record(visited, backtracks, peakDepth);
+        }
+        return Arrays.copyOf(path, index + 1);
     }
-    public static void solveMazeMulti(int threads, int[][] rules){
-        ExecutorService es = Executors.newCachedThreadPool();
-        for(int i=0; i<threads; i++)
-            es.execute(new MultiNodeSolver(rules[i]));
-        es.shutdown();
+    public void solveMazeMulti(int threads, int[][] rules){
+        solveMazeMulti(threads, rules, null, path -> {});
+    }
+    /**
+     * Races one thread per rule and waits for the first path, at most 10 minutes.
+     * @param onFinished called once with the first path found
+     */
+    public void solveMazeMulti(int threads, int[][] rules, SolverMetrics metrics, Consumer<int[]> onFinished){
         try {
-            boolean finished = es.awaitTermination(10, TimeUnit.MINUTES);
-            if (!finished){
+            int[] path = solveAsync(Arrays.copyOf(rules, Math.min(threads, rules.length)), Duration.ofMinutes(10), metrics).result().join();
+            if (path != null){
+                onFinished.accept(path);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException){
                 System.out.println("Time out!");
+            } else {
+                throw e;
             }
-
-        } catch (InterruptedException e) {
-            e.printStackTrace();
         }
     }
-    public static void finisched(Node[] path){
-        Main.TimeCheck();
-        Point[] mySolution = convertSolution(path);
-        Main.maze.checkSolution(mySolution);
-    }
-
-    public static Point[] convertSolution(Node[] solution){
-        ArrayList<Point> list = new ArrayList<>();
-        for (int i = 0; i < solution.length; i++){
-            if (solution[i] == null) {break;}
-            list.add(solution[i].getPoint());
+    /**
+     * Starts one thread per rule, each searching with solveMazeIteraWithRule. The first path
+     * found completes the race and stops the other threads.
+     * @param deadline time after which the race fails with a TimeoutException, or null for none
+     */
+    public SolveRace solveAsync(int[][] rules, Duration deadline, SolverMetrics metrics){
+        List<String> names = new ArrayList<>();
+        List<Function<SolveControl, int[]>> solvers = new ArrayList<>();
+        for (int[] rule : rules){
+            String name = "rule " + Arrays.toString(rule);
+            ThreadStats stats = metrics == null ? null : metrics.thread("Node Multi", name);
+            names.add(name);
+            solvers.add(control -> solveMazeIteraWithRule(rule, stats, control));
         }
-        Point[] points = new Point[list.size()];
-        for (int i = 0; i < list.size(); i++){
-            points[i] = list.get(i);
+        return SolveRace.start(names, solvers, deadline);
+    }
+    private static void check(MazeGrid grid, Point[] path, int start, int end, SolverMetrics metrics){
+        int[] cells = new int[path.length];
+        for (int i = 0; i < path.length; i++){
+            cells[i] = grid.index(path[i]);
         }
-        return points;
+        check(grid, cells, start, end, metrics);
     }
-}
 
-class MultiNodeSolver extends Thread {
-    int[] rule;
+    private static void check(MazeGrid grid, int[] path, int start, int end, SolverMetrics metrics){
+        check(grid, CompactPath.fromCells(grid, path), grid.point(start), grid.point(end), metrics);
+    }
 
-    public MultiNodeSolver(int[] rule) {
-        this.rule = rule;
+    private static void check(MazeView maze, CompactPath path, Point start, Point end, SolverMetrics metrics){
+        if (!metrics.time("verify", () -> PathVerifier.verifyParallel(maze, path, start, end, Parallel.threads()))){
+            System.out.println("check fails for the path starting at (" + path.getStartX() + ", " + path.getStartY() + ")");
+        }
     }
 
-    @Override
-    public void run() {
-        NodeSolver.finisched(NodeSolver.solveMazeIteraWithRule(rule));
+    public Point[] convertSolution(int[] solution){
+        Point[] points = new Point[solution.length];
+        for (int i = 0; i < solution.length; i++){
+            points[i] = grid.point(solution[i]);
+        }
+        return points;
     }
 }
@@ -0,0 +1,62 @@
+package com.stroby;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs independent pieces of work (regions, tiles, row bands, ...) on a given number of threads.
+ */
+final class Parallel {
+
+    private Parallel() {}
+
+    static int threads(){
+        return ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * Calls task for every index in [0, count) using up to threads threads and returns once all are done.
+     */
+    static void forEach(int threads, int count, IntConsumer task){
+        if (threads <= 1 || count <= 1){
+            for (int i = 0; i < count; i++){
+                task.accept(i);
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            forEach(pool, count, task);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Same as forEach(threads, count, task), but on a pool the caller keeps for many calls,
+     * e.g. one per level of a search. A null pool runs the task on the calling thread.
+     */
+    static void forEach(ForkJoinPool pool, int count, IntConsumer task){
+        if (pool == null || count <= 1){
+            for (int i = 0; i < count; i++){
+                task.accept(i);
+            }
+            return;
+        }
+
+        try {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel work", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
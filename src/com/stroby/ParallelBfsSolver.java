@@ -0,0 +1,215 @@
+package com.stroby;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Level synchronous breadth first search, which finds a shortest path also in mazes with
+ * loops (see MazeGenerator.braid). All cells at distance d from start are expanded before any
+ * cell at distance d + 1, and every cell takes a cell of the previous level as its parent.
+ *
+ * The search is direction optimizing: while the frontier is small, its cells are expanded
+ * top down, claiming unvisited neighbors with a CAS on parent. Once the frontier becomes large
+ * compared to the unvisited rest, it is cheaper to go bottom up: every unvisited cell looks
+ * for a neighbor in the frontier, which is kept as a bit set then, and no CAS is needed since
+ * every cell only writes its own parent.
+ *
+ * Levels with a frontier too small to be worth splitting up run on the calling thread; in a
+ * perfect maze that is almost every level.
+ */
+public final class ParallelBfsSolver {
+
+    private static final VarHandle PARENT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int SEQUENTIAL_FRONTIER = 1 << 11;
+    private static final int FRONTIER_CHUNK = 1 << 10;
+    private static final int WORD_CHUNK = 1 << 8;
+    // switch to bottom up when frontier * ALPHA > unvisited, back to top down when frontier * BETA < cells (Beamer et al.)
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    private final MazeGrid grid;
+    private final int start;
+    private final int end;
+    private final ForkJoinPool pool; // null for a single thread
+
+    private final int[] parent; // -1 while not visited
+    private int[] frontier;
+    private int[] next;
+    private int frontierSize;
+    private long[] frontierBits; // all zero unless bitsValid
+    private long[] nextBits;
+    private boolean listValid;
+    private boolean bitsValid;
+
+    private ParallelBfsSolver(MazeGrid grid, int start, int end, ForkJoinPool pool){
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+        this.pool = pool;
+        this.parent = new int[grid.size()];
+        this.frontier = new int[grid.size()];
+        this.next = new int[grid.size()];
+        this.frontierBits = new long[(grid.size() + 63) >>> 6];
+        this.nextBits = new long[frontierBits.length];
+    }
+
+    public static int[] solve(MazeGrid grid, int start, int end){
+        return solve(grid, start, end, Parallel.threads());
+    }
+
+    /**
+     * @return a shortest path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads){
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            return new ParallelBfsSolver(grid, start, end, pool).run();
+        } finally {
+            if (pool != null){
+                pool.shutdown();
+            }
+        }
+    }
+
+    private int[] run(){
+        Arrays.fill(parent, -1);
+        parent[start] = start;
+        frontier[0] = start;
+        frontierSize = 1;
+        listValid = true;
+        int unvisited = grid.size() - 1;
+        int levels = 0;
+        boolean bottomUp = false;
+        while (frontierSize > 0 && parent[end] < 0){
+            if (!bottomUp && (long) frontierSize * ALPHA > unvisited){
+                bottomUp = true;
+            } else if (bottomUp && (long) frontierSize * BETA < grid.size()){
+                bottomUp = false;
+            }
+            if (bottomUp){
+                bottomUpStep();
+            } else {
+                topDownStep();
+            }
+            unvisited -= frontierSize;
+            levels++;
+        }
+        if (parent[end] < 0){
+            return null;
+        }
+
+        int[] path = new int[levels + 1];
+        int cell = end;
+        for (int i = levels; i >= 0; i--){
+            path[i] = cell;
+            cell = parent[cell];
+        }
+        return path;
+    }
+
+    private void topDownStep(){
+        if (!listValid){
+            frontierFromBits();
+        }
+        int size = frontierSize;
+        if (pool == null || size < SEQUENTIAL_FRONTIER){
+            int nextSize = 0;
+            for (int i = 0; i < size; i++){
+                int cell = frontier[i];
+                int neighbors = grid.neighborCount(cell);
+                for (int k = 0; k < neighbors; k++){
+                    int neighbor = grid.neighborAt(cell, k);
+                    if (parent[neighbor] < 0){
+                        parent[neighbor] = cell;
+                        next[nextSize++] = neighbor;
+                    }
+                }
+            }
+            frontierSize = nextSize;
+        } else {
+            AtomicInteger nextSize = new AtomicInteger();
+            Parallel.forEach(pool, (size + FRONTIER_CHUNK - 1) / FRONTIER_CHUNK, c -> {
+                int last = Math.min(size, (c + 1) * FRONTIER_CHUNK);
+                int[] found = new int[4 * FRONTIER_CHUNK];
+                int count = 0;
+                for (int i = c * FRONTIER_CHUNK; i < last; i++){
+                    int cell = frontier[i];
+                    int neighbors = grid.neighborCount(cell);
+                    for (int k = 0; k < neighbors; k++){
+                        int neighbor = grid.neighborAt(cell, k);
+                        if (parent[neighbor] < 0 && PARENT.compareAndSet(parent, neighbor, -1, cell)){
+                            found[count++] = neighbor;
+                        }
+                    }
+                }
+                System.arraycopy(found, 0, next, nextSize.getAndAdd(count), count);
+            });
+            frontierSize = nextSize.get();
+        }
+        int[] swap = frontier;
+        frontier = next;
+        next = swap;
+        if (bitsValid){
+            Arrays.fill(frontierBits, 0);
+            bitsValid = false;
+        }
+    }
+
+    private void bottomUpStep(){
+        if (!bitsValid){
+            for (int i = 0; i < frontierSize; i++){
+                frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+            }
+            bitsValid = true;
+        }
+        int words = frontierBits.length;
+        int size = grid.size();
+        AtomicInteger nextSize = new AtomicInteger();
+        Parallel.forEach(pool, (words + WORD_CHUNK - 1) / WORD_CHUNK, c -> {
+            int lastWord = Math.min(words, (c + 1) * WORD_CHUNK);
+            int count = 0;
+            for (int word = c * WORD_CHUNK; word < lastWord; word++){
+                long bits = 0;
+                int lastCell = Math.min(size, (word + 1) << 6);
+                for (int cell = word << 6; cell < lastCell; cell++){
+                    if (parent[cell] >= 0){
+                        continue;
+                    }
+                    int neighbors = grid.neighborCount(cell);
+                    for (int k = 0; k < neighbors; k++){
+                        int neighbor = grid.neighborAt(cell, k);
+                        if ((frontierBits[neighbor >>> 6] & (1L << neighbor)) != 0){
+                            parent[cell] = neighbor;
+                            bits |= 1L << cell;
+                            count++;
+                            break;
+                        }
+                    }
+                }
+                nextBits[word] = bits;
+            }
+            nextSize.addAndGet(count);
+        });
+        frontierSize = nextSize.get();
+        long[] swap = frontierBits;
+        frontierBits = nextBits;
+        nextBits = swap;
+        Arrays.fill(nextBits, 0);
+        listValid = false;
+    }
+
+    private void frontierFromBits(){
+        int size = 0;
+        for (int word = 0; word < frontierBits.length; word++){
+            for (long bits = frontierBits[word]; bits != 0; bits &= bits - 1){
+                frontier[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        frontierSize = size;
+        listValid = true;
+    }
+}
@@ -0,0 +1,109 @@
+package com.stroby;
+
+/**
+ * Checks a CompactPath against the passage bits of a maze, like SequentialMaze.checkSolution
+ * does for a Point[], but without allocating anything per step.
+ */
+public final class PathVerifier {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int WORDS_PER_CHUNK = 1 << 12;
+
+    private PathVerifier() {}
+
+    /**
+     * @return true if the path leads from start to end through passages only
+     */
+    public static boolean verify(MazeView maze, CompactPath path, Point start, Point end){
+        if (path.getStartX() != start.getX() || path.getStartY() != start.getY()){
+            return false;
+        }
+        long position = walk(maze, path.words(), 0, path.length(), start.getX(), start.getY());
+        return position == pack(end.getX(), end.getY());
+    }
+
+    /**
+     * Same as verify, for very long paths: the path is cut into chunks, the offset every chunk
+     * moves by is summed up in parallel, and then every chunk is checked in parallel from the
+     * cell it starts on.
+     */
+    public static boolean verifyParallel(MazeView maze, CompactPath path, Point start, Point end, int threads){
+        if (path.getStartX() != start.getX() || path.getStartY() != start.getY()){
+            return false;
+        }
+        long[] words = path.words();
+        int stepsPerChunk = WORDS_PER_CHUNK * CompactPath.STEPS_PER_WORD;
+        int chunks = (path.length() + stepsPerChunk - 1) / stepsPerChunk;
+        if (chunks <= 1){
+            return verify(maze, path, start, end);
+        }
+
+        int[] dx = new int[chunks];
+        int[] dy = new int[chunks];
+        Parallel.forEach(threads, chunks, c -> {
+            int last = Math.min(path.length(), (c + 1) * stepsPerChunk);
+            int x = 0;
+            int y = 0;
+            for (int i = c * stepsPerChunk; i < last; i++){
+                Direction d = DIRECTIONS[CompactPath.direction(words, i)];
+                x += d.dx;
+                y += d.dy;
+            }
+            dx[c] = x;
+            dy[c] = y;
+        });
+
+        // turn the offsets into the cell every chunk starts on
+        int[] startX = new int[chunks + 1];
+        int[] startY = new int[chunks + 1];
+        startX[0] = start.getX();
+        startY[0] = start.getY();
+        for (int c = 0; c < chunks; c++){
+            startX[c + 1] = startX[c] + dx[c];
+            startY[c + 1] = startY[c] + dy[c];
+        }
+        if (startX[chunks] != end.getX() || startY[chunks] != end.getY()){
+            return false;
+        }
+
+        boolean[] valid = new boolean[chunks];
+        Parallel.forEach(threads, chunks, c -> {
+            int last = Math.min(path.length(), (c + 1) * stepsPerChunk);
+            valid[c] = walk(maze, words, c * stepsPerChunk, last, startX[c], startY[c]) == pack(startX[c + 1], startY[c + 1]);
+        });
+        for (boolean chunkValid : valid){
+            if (!chunkValid){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Follows steps [from, to) starting on (x, y).
+     * @return the cell reached packed by pack, or -1 as soon as a step leads through a wall
+     */
+    private static long walk(MazeView maze, long[] words, int from, int to, int x, int y){
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        if (x < 0 || x >= width || y < 0 || y >= height){
+            return -1;
+        }
+        for (int i = from; i < to; i++){
+            Direction d = DIRECTIONS[CompactPath.direction(words, i)];
+            if ((maze.passages(x, y) & d.bit) == 0){
+                return -1;
+            }
+            x += d.dx;
+            y += d.dy;
+            if (x < 0 || x >= width || y < 0 || y >= height){
+                return -1;
+            }
+        }
+        return pack(x, y);
+    }
+
+    private static long pack(int x, int y){
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+}
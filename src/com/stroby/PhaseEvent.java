@@ -0,0 +1,19 @@
+package com.stroby;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One phase (generate, convert, solve, verify) of a maze run, recorded by SolverMetrics.
+ */
+@Name("com.stroby.Phase")
+@Label("Maze Phase")
+@Category("Maze")
+@Description("Duration of one phase of a maze run")
+class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+}
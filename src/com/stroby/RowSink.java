@@ -0,0 +1,13 @@
+package com.stroby;
+
+import java.io.IOException;
+
+/**
+ * Receives a maze one row at a time, top to bottom, as the passage bits of its cells (one
+ * bit per Direction). The array belongs to the sink, the producer never touches it again.
+ */
+@FunctionalInterface
+public interface RowSink {
+
+    void row(int[] passages) throws IOException;
+}
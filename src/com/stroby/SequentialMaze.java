@@ -14,9 +14,10 @@
 
 package com.stroby;
 
-import java.util.ArrayDeque;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
@@ -60,21 +61,6 @@ final class Point {
   }
 }
 
-final class PointAndDirection {
-  final private Point point;
-  public Point getPoint() {
-    return point;
-  }
-  final private Direction directionToBranchingPoint;
-  public Direction getDirectionToBranchingPoint() {
-    return directionToBranchingPoint;
-  }
-  PointAndDirection(Point p, Direction direction) {
-    this.point = p;
-    directionToBranchingPoint = direction;
-  }
-}
-
 enum Direction {
   N(1, 0, -1), S(2, 0, 1), E(4, 1, 0), W(8, -1, 0);
   final int bit;
@@ -120,71 +106,74 @@ final public class SequentialMaze extends JPanel {
   private final int height;  // total number of cells in y direction
   
  
-  private final int[][] passages;
+  private final MazeGrid passages;
   /*    
-   *  Each int represents a cell in the maze with the passages possible from this
-   *  cell. Its four least significant bits are interpreted as one flag for each direction
-   *  (see enum Direction for which bit means which direction) indicating whether 
-   *  there is a passage from this cell in that direction (note that passages
-   *  and walls are not cells, but represented indirectly by these flags).
+   *  Each cell in the maze holds the passages possible from this cell as four
+   *  bits, one flag for each direction (see enum Direction for which bit means
+   *  which direction) indicating whether there is a passage from this cell in
+   *  that direction (note that passages and walls are not cells, but represented
+   *  indirectly by these flags). The cells are packed into one flat array and
+   *  addressed by their linear index (see MazeGrid).
    *  Initially all cells are 0, i.e. have no passage from them (i.e. surrounded
    *  by walls on all their four sides).
    */ 
 
-  private final boolean[][] visited; 
-  // for each cell in the maze: Has solve() visited it yet?
+  private final boolean[] visited; 
+  // for each cell in the maze (by linear index): Has solve() visited it yet?
   
   private final Point start;
   private final Point end;
   
   private Point[] solution = null; // set to solution path once that has been computed
 
+  private final long seed; // generate() always builds the same maze for the same seed
+
   public SequentialMaze(int width, int height, Point start, Point end) {
+    this(width, height, start, end, new SplittableRandom().nextLong());
+  }
+
+  public SequentialMaze(int width, int height, Point start, Point end, long seed) {
+    this(width, height, start, end, seed, 0);
+  }
+
+  /**
+   * @param loopDensity share of the dead ends opened up into loops after generating, 0 for a perfect maze (see MazeGenerator.braid)
+   */
+  public SequentialMaze(int width, int height, Point start, Point end, long seed, double loopDensity) {
     this.width = width;
     this.height = height;
     this.start = start;
     this.end = end;
-    passages = new int[width][height];  // initially all 0
-    visited = new boolean[width][height]; // initially all false
+    this.seed = seed;
+    passages = new MazeGrid(width, height);  // initially all 0
+    visited = new boolean[width*height]; // initially all false
     generate();
+    if (loopDensity > 0)
+      MazeGenerator.braid(passages, seed, loopDensity, Parallel.threads());
+  }
+
+  /**
+   * Wraps an already generated maze, e.g. one read back from a maze file.
+   */
+  public SequentialMaze(MazeGrid passages, Point start, Point end, long seed) {
+    this.width = passages.getWidth();
+    this.height = passages.getHeight();
+    this.start = start;
+    this.end = end;
+    this.seed = seed;
+    this.passages = passages;
+    visited = new boolean[width*height]; // initially all false
   }
 
 /**
- * Generate a perfect maze (i.e. one without cycles) using the depth-first algorithm
- * (www.astrolog.org/labyrnth/algrithm.htm) 
+ * Generate a perfect maze (i.e. one without cycles) from independent depth-first
+ * mazes (www.astrolog.org/labyrnth/algrithm.htm) built concurrently per region
+ * and joined afterwards (see MazeGenerator)
 */
   
 
   private void generate() {
-    ArrayDeque<Point> pointsToDo = new ArrayDeque<Point>();
-    Point current;
-    pointsToDo.push(start);
-    while (!pointsToDo.isEmpty()) {
-      current = pointsToDo.pop();
-      int cx = current.getX();
-      int cy = current.getY();
-      Direction[] dirs = Direction.values();
-      Collections.shuffle(Arrays.asList(dirs));
-      // For all unvisited neighboring cells in random order: 
-      // Make a passage from the current cell to that neighbor
-      for (Direction dir : dirs) {
-        // Pick random neighbor of current cell as new cell (nx, ny)
-        int nx = cx + dir.dx;
-        int ny = cy + dir.dy;
-        Point neighbor = new Point(nx, ny);
-  
-        if (contains(neighbor) // If new cell (nx, ny) is still in the maze ...
-            && passages[nx][ny] == 0) { // ... and has no passage yet, i.e. has not been visited
-                                    // (remove this condition to create a cycle!)
-          // Make a passage from current to neighbor
-          passages[cx][cy] |= dir.bit;
-          passages[nx][ny] |= dir.opposite.bit;
-
-          // Remember to continue from this neighbor later on
-          pointsToDo.push(neighbor);
-        }
-      }
-    }
+    MazeGenerator.generate(passages, seed);
   }
   
   private boolean contains(Point p) {
@@ -196,24 +185,61 @@ final public class SequentialMaze extends JPanel {
     if (!contains(from) ||  !contains(to)) {
       return false;
     }
-    if (from.getNeighbor(Direction.N).equals(to))
-      return (passages[from.getX()][from.getY()] & Direction.N.bit) != 0;
-    if (from.getNeighbor(Direction.S).equals(to))
-      return (passages[from.getX()][from.getY()] & Direction.S.bit) != 0;
-    if (from.getNeighbor(Direction.E).equals(to))
-      return (passages[from.getX()][from.getY()] & Direction.E.bit) != 0;
-    if (from.getNeighbor(Direction.W).equals(to))
-      return (passages[from.getX()][from.getY()] & Direction.W.bit) != 0;
-    return false;  // To suppress warning about undefined return value
+    int dir = passages.directionTo(passages.index(from), passages.index(to));
+    return dir >= 0 && passages.hasPassage(passages.index(from), dir);
   }
 
-  private boolean visitedBefore(Point p) {
-    return visited[p.getX()][p.getY()];
+  /**
+   * Opens the wall between two adjacent cells. Afterwards the maze may contain loops.
+   */
+  public void openWall(Point from, Point to) {
+    passages.carve(passages.index(from), wallDirection(from, to));
+  }
+
+  /**
+   * Closes the wall between two adjacent cells. Afterwards end may not be reachable anymore.
+   */
+  public void closeWall(Point from, Point to) {
+    passages.closeWall(passages.index(from), wallDirection(from, to));
   }
 
-  private void visit(Point p) {
-    // DEBUG System.out.println("Visiting " + p);
-    visited[p.getX()][p.getY()] = true;
+  private int wallDirection(Point from, Point to) {
+    int dir = contains(from) && contains(to) ? passages.directionTo(passages.index(from), passages.index(to)) : -1;
+    if (dir < 0)
+      throw new IllegalArgumentException(from + " and " + to + " are not adjacent cells of the maze");
+    return dir;
+  }
+
+  public MazeGrid getGrid() {
+    return passages;
+  }
+
+  /**
+   * @return the approximate heap size of the maze in bytes
+   */
+  public long sizeInBytes() {
+    return passages.sizeInBytes() + visited.length;
+  }
+
+  public Point getStart() {
+    return start;
+  }
+
+  public Point getEnd() {
+    return end;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  private boolean visitedBefore(int cell) {
+    return visited[cell];
+  }
+
+  private void visit(int cell) {
+    // DEBUG System.out.println("Visiting " + passages.point(cell));
+    visited[cell] = true;
   }
 
   public boolean checkSolution(Point[] solution) {
@@ -225,7 +251,7 @@ final public class SequentialMaze extends JPanel {
 
     for (int i = 1; i < solution.length; ++i) {
       Point to = solution[i];
-      if (!hasPassage(from, to)) {
+      if (!contains(to) || !hasPassage(from, to)) {
         System.out.println("checkSolution fails because there is no passage from " + from + " to " + to);
         return false;
       }
@@ -242,55 +268,78 @@ final public class SequentialMaze extends JPanel {
    * @return Returns a path through the maze from start to end as an array, or null if no solution exists
    */
   public Point[] solve() {
+    return solve(null);
+  }
 
-    Point current = start;
-    ArrayDeque<Point> pathSoFar = new ArrayDeque<Point>();  // Path from start just before current
-
-    ArrayDeque<PointAndDirection> backtrackStack = new ArrayDeque<PointAndDirection>();
-    // Used as a stack: Branches not yet taken; solver will backtrack to these branching points later
-    // Is it faster to allocate backtrackStack with width*height elements right away?
-
-
-    while (!current.equals(end)) {
-      Point next = null;
+  /**
+   * Like solve(), and records the cells visited, backtracks and peak path length in stats (if not null)
+   */
+  public Point[] solve(ThreadStats stats) {
+
+    Arrays.fill(visited, false); // so that solve() can be called more than once
+    int current = passages.index(start);
+    int endCell = passages.index(end);
+    int[] pathSoFar = new int[width*height];  // Path from start just before current
+    int pathLength = 0;
+
+    int[] backtrackStack = new int[2*width*height];
+    int backtrackSize = 0;
+    // Used as a stack of (neighbor, branching point) pairs: Branches not yet taken;
+    // solver will backtrack to these branching points later
+    long visits = 0, backtracks = 0;
+    int peakLength = 0;
+
+    while (current != endCell) {
+      int next = -1;
       visit(current);
+      visits++;
 
       // Use first random unvisited neighbor as next cell, push others on the backtrack stack: 
-      Direction[] dirs = Direction.values();
-      for (Direction directionToNeighbor: dirs) {
-        Point neighbor = current.getNeighbor(directionToNeighbor);
-        if (contains(neighbor) && hasPassage(current, neighbor) && !visitedBefore(neighbor)) {
-          if (next == null) // 1st unvisited neighbor
+      int neighbors = passages.neighborCount(current);
+      for (int k = 0; k < neighbors; k++) {
+        int neighbor = passages.neighborAt(current, k);
+        if (!visitedBefore(neighbor)) {
+          if (next == -1) // 1st unvisited neighbor
             next = neighbor;
-          else // 2nd or higher unvisited neighbor: Save neighbor as starting cell for a later backtracking
-            backtrackStack.push(new PointAndDirection(neighbor, directionToNeighbor.opposite));
+          else { // 2nd or higher unvisited neighbor: Save neighbor as starting cell for a later backtracking
+            backtrackStack[backtrackSize++] = neighbor;
+            backtrackStack[backtrackSize++] = current;
+          }
         }
       }
       // Advance to next cell, if any:
-      if (next != null) {
-        // DEBUG System.out.println("Advancing from " + current + " to " + next);
-        pathSoFar.addLast(current);
+      if (next != -1) {
+        // DEBUG System.out.println("Advancing from " + passages.point(current) + " to " + passages.point(next));
+        pathSoFar[pathLength++] = current;
+        peakLength = Math.max(peakLength, pathLength);
         current = next;
       } else { 
         // current has no unvisited neighbor: Backtrack, if possible
-        if (backtrackStack.isEmpty())
+        if (backtrackSize == 0) {
+          if (stats != null)
+            stats.record(visits, backtracks, peakLength);
           return null; // No more backtracking avaible: No solution exists
+        }
+        backtracks++;
 
         // Backtrack: Continue with cell saved at latest branching point:
-        PointAndDirection pd = backtrackStack.pop();
-        current = pd.getPoint();
-        Point branchingPoint = current.getNeighbor(pd.getDirectionToBranchingPoint());
-        // DEBUG System.out.println("Backtracking to " +  branchingPoint);
+        int branchingPoint = backtrackStack[--backtrackSize];
+        current = backtrackStack[--backtrackSize];
+        // DEBUG System.out.println("Backtracking to " +  passages.point(branchingPoint));
         // Remove the dead end from the top of pathSoFar, i.e. all cells after branchingPoint:
-        while (!pathSoFar.peekLast().equals(branchingPoint)) {
-          // DEBUG System.out.println("    Going back before " + pathSoFar.peekLast());
-          pathSoFar.removeLast();
+        while (pathSoFar[pathLength - 1] != branchingPoint) {
+          // DEBUG System.out.println("    Going back before " + passages.point(pathSoFar[pathLength - 1]));
+          pathLength--;
         }
       }
     }
-    pathSoFar.addLast(current);
-     // Point[0] is only for making the return value have type Point[] (and not Object[]):
-    return pathSoFar.toArray(new Point[0]); 
+    pathSoFar[pathLength++] = current;
+    if (stats != null)
+      stats.record(visits + 1, backtracks, Math.max(peakLength, pathLength));
+    Point[] solution = new Point[pathLength];
+    for (int i = 0; i < pathLength; i++)
+      solution[i] = passages.point(pathSoFar[i]);
+    return solution;
   }
   
   @Override
@@ -300,24 +349,12 @@ final public class SequentialMaze extends JPanel {
   }
   
   public void print() {
-    for (int i = 0; i < height; i++) {
-      // draw the north edges
-      for (int j = 0; j < width; j++) {
-        System.out.print((passages[j][i] & 1) == 0 ? "+---" : "+   ");
-      }
-      System.out.println("+");
-      // draw the west edges
-      for (int j = 0; j < width; j++) {
-        System.out.print((passages[j][i] & 8) == 0 ? "|   " : "    ");
-      }
-      // draw the far east edge
-      System.out.println("|");
-    }
-    // draw the bottom line
-    for (int j = 0; j < width; j++) {
-      System.out.print("+---");
+    // rendered in parallel and written in large blocks, see MazeText
+    try {
+      MazeText.write(passages, System.out, Parallel.threads());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
-    System.out.println("+");
   }
   
   public boolean smallEnoughToDisplay() {
@@ -351,12 +388,12 @@ final public class SequentialMaze extends JPanel {
     for(int x = 0; x < width; ++x) {
       for(int y = 0; y < height; ++y) {
         // draw north edge of each cell (together with south edge of cell below)
-        if ((passages[x][y] & Direction.N.bit) == 0)
+        if ((passages.passages(x, y) & Direction.N.bit) == 0)
           // y-HALF_WALL_PX will be half out of maze  for x=0 row, 
           // but that does not hurt the picture thanks to automatic cropping
           graphics.fillRect(x*CELL_PX, y*CELL_PX-HALF_WALL_PX, CELL_PX, 2*HALF_WALL_PX);
         // draw west edge of each cell (together with east edge of cell to the right)
-        if ((passages[x][y] & Direction.W.bit) == 0)
+        if ((passages.passages(x, y) & Direction.W.bit) == 0)
           // x-HALF_WALL_PX will be half out of maze  for y=0 column, 
           // but that does not hurt the picture thanks to automatic cropping
           graphics.fillRect(x*CELL_PX-HALF_WALL_PX, y*CELL_PX, 2*HALF_WALL_PX, CELL_PX);
@@ -369,10 +406,11 @@ final public class SequentialMaze extends JPanel {
   }
 
   public void printSolution() {
-    System.out.print("Solution: ");
-    for (Point p: solution)
-      System.out.print(p);
-    System.out.println();
+    try {
+      MazeText.writeSolution(solution, System.out, Parallel.threads());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
   
   public void displaySolution(Point[] solution, JFrame frame) {
@@ -382,10 +420,12 @@ final public class SequentialMaze extends JPanel {
 
   public static void main(String[] args) {
     int width = args.length >= 1 ? (Integer.parseInt(args[0])) : 10;
-    int height = args.length == 2 ? (Integer.parseInt(args[1])) : 10;
+    int height = args.length >= 2 ? (Integer.parseInt(args[1])) : 10;
     JFrame frame = null;
     
-    SequentialMaze maze = new SequentialMaze(width, height, new Point(width-1, 0), new Point(0, height-1));
+    SequentialMaze maze = args.length >= 3
+        ? new SequentialMaze(width, height, new Point(width-1, 0), new Point(0, height-1), Long.parseLong(args[2]))
+        : new SequentialMaze(width, height, new Point(width-1, 0), new Point(0, height-1));
     
     if (maze.smallEnoughToDisplay()) {
       frame = new JFrame("Sequential maze solver");
@@ -0,0 +1,66 @@
+package com.stroby;
+
+/**
+ * Connects one running solver with the code waiting for it: the solver publishes its
+ * progress here and learns whether it should give up. Solvers only come here every
+ * CHECK_INTERVAL steps, counting down a local variable in between, so the hot loop stays
+ * free of volatile reads and writes.
+ */
+public final class SolveControl {
+
+    /**
+     * Steps of a solver between two checkpoints.
+     */
+    public static final int CHECK_INTERVAL = 1 << 14;
+
+    private final String name;
+    private volatile boolean cancelled;
+    // written by the solver thread only
+    private volatile long cellsExplored;
+    private volatile int depth;
+
+    public SolveControl(String name){
+        this.name = name;
+    }
+
+    /**
+     * Publishes the progress of the solver.
+     * @return true if the solver should stop
+     */
+    public boolean checkpoint(long cellsExplored, int depth){
+        this.cellsExplored = cellsExplored;
+        this.depth = depth;
+        return cancelled;
+    }
+
+    public void cancel(){
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the cells explored at the last checkpoint
+     */
+    public long getCellsExplored() {
+        return cellsExplored;
+    }
+
+    /**
+     * @return the current depth (length of the path being explored) at the last checkpoint
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + cellsExplored + " cells explored, depth " + depth + (cancelled ? ", cancelled" : "");
+    }
+}
@@ -0,0 +1,102 @@
+package com.stroby;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs several solvers for the same maze at the same time, each on its own thread, and
+ * completes its future with the first path found. As soon as the future is done, with a
+ * path, because the deadline passed or because it was cancelled, every solver still running
+ * is told to stop through its SolveControl, so no thread keeps working for a lost race.
+ *
+ * A solver that gives up returns null. If no solver finds a path, the future completes with
+ * null, or with the exception of a failed solver.
+ */
+public final class SolveRace {
+
+    private final CompletableFuture<int[]> result = new CompletableFuture<>();
+    private final SolveControl[] controls;
+
+    private SolveRace(int solvers){
+        this.controls = new SolveControl[solvers];
+    }
+
+    /**
+     * @param names one name per solver, for its control and its thread
+     * @param solvers each runs one solver and returns its path, or null if it gives up
+     * @param deadline time after which the future fails with a TimeoutException, or null for none
+     */
+    public static SolveRace start(List<String> names, List<Function<SolveControl, int[]>> solvers, Duration deadline){
+        SolveRace race = new SolveRace(solvers.size());
+        for (int i = 0; i < solvers.size(); i++){
+            race.controls[i] = new SolveControl(names.get(i));
+        }
+        if (deadline != null){
+            race.result.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        race.result.whenComplete((path, failure) -> race.stopAll());
+
+        AtomicInteger running = new AtomicInteger(solvers.size());
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        for (int i = 0; i < solvers.size(); i++){
+            Function<SolveControl, int[]> solver = solvers.get(i);
+            SolveControl control = race.controls[i];
+            Thread thread = new Thread(() -> {
+                try {
+                    int[] path = solver.apply(control);
+                    if (path != null){
+                        race.result.complete(path);
+                    }
+                } catch (RuntimeException | Error e) {
+                    firstFailure.compareAndSet(null, e);
+                } finally {
+                    if (running.decrementAndGet() == 0){
+                        // nobody found a path, otherwise the future would be done already
+                        Throwable failure = firstFailure.get();
+                        if (failure != null){
+                            race.result.completeExceptionally(failure);
+                        } else {
+                            race.result.complete(null);
+                        }
+                    }
+                }
+            }, control.getName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return race;
+    }
+
+    /**
+     * @return the first path found; cancelling it stops all solvers
+     */
+    public CompletableFuture<int[]> result(){
+        return result;
+    }
+
+    public List<SolveControl> controls(){
+        return List.of(controls);
+    }
+
+    /**
+     * @return the cells explored by all solvers together, as of their last checkpoints
+     */
+    public long cellsExplored(){
+        long cells = 0;
+        for (SolveControl control : controls){
+            cells += control.getCellsExplored();
+        }
+        return cells;
+    }
+
+    private void stopAll(){
+        for (SolveControl control : controls){
+            control.cancel();
+        }
+    }
+}
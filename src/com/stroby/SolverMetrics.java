@@ -0,0 +1,117 @@
+package com.stroby;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the nanosecond timings of the phases of a run and the ThreadStats of every solver
+ * thread, emits a JFR event for every phase, and exports everything as one JSON object.
+ * Phases with the same name (e.g. several "verify" phases) are summed up.
+ */
+public final class SolverMetrics {
+
+    private final Map<String, long[]> phases = new LinkedHashMap<>(); // name -> {total nanos, count}
+    private final List<ThreadStats> threads = new ArrayList<>();
+
+    /**
+     * Starts timing a phase, which ends when the returned Phase is closed.
+     */
+    public Phase phase(String name){
+        return new Phase(name);
+    }
+
+    /**
+     * Times the work as the phase with the given name.
+     * @return what the work returned
+     */
+    public <T, E extends Exception> T time(String name, Work<T, E> work) throws E {
+        Phase phase = phase(name);
+        try {
+            return work.get();
+        } finally {
+            phase.close();
+        }
+    }
+
+    /**
+     * Times the task as the phase with the given name.
+     */
+    public <E extends Exception> void time(String name, Task<E> task) throws E {
+        Phase phase = phase(name);
+        try {
+            task.run();
+        } finally {
+            phase.close();
+        }
+    }
+
+    public synchronized ThreadStats thread(String solver, String thread){
+        ThreadStats stats = new ThreadStats(solver, thread);
+        threads.add(stats);
+        return stats;
+    }
+
+    private synchronized void addPhase(String name, long nanos){
+        long[] phase = phases.computeIfAbsent(name, n -> new long[2]);
+        phase[0] += nanos;
+        phase[1]++;
+    }
+
+    public synchronized long getPhaseNanos(String name){
+        long[] phase = phases.get(name);
+        return phase == null ? 0 : phase[0];
+    }
+
+    public synchronized List<ThreadStats> getThreads(){
+        return new ArrayList<>(threads);
+    }
+
+    public synchronized String toJson(){
+        StringBuilder json = new StringBuilder("{\"phases\":[");
+        String separator = "";
+        for (Map.Entry<String, long[]> phase : phases.entrySet()){
+            json.append(separator).append("{\"name\":\"").append(phase.getKey())
+                    .append("\",\"nanos\":").append(phase.getValue()[0])
+                    .append(",\"count\":").append(phase.getValue()[1]).append('}');
+            separator = ",";
+        }
+        json.append("],\"threads\":[");
+        separator = "";
+        for (ThreadStats stats : threads){
+            json.append(separator).append(stats.toJson());
+            separator = ",";
+        }
+        return json.append("]}").toString();
+    }
+
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T get() throws E;
+    }
+
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long start;
+
+        private Phase(String name) {
+            this.name = name;
+            event.phase = name;
+            event.begin();
+            start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            addPhase(name, System.nanoTime() - start);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.stroby;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The work one solver thread has done, recorded by ThreadStats.
+ */
+@Name("com.stroby.SolverThread")
+@Label("Maze Solver Thread")
+@Category("Maze")
+@Description("Cells visited, backtracks and peak depth of one solver thread")
+class SolverThreadEvent extends jdk.jfr.Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Thread")
+    String thread;
+
+    @Label("Cells Visited")
+    long cellsVisited;
+
+    @Label("Backtracks")
+    long backtracks;
+
+    @Label("Peak Depth")
+    long peakDepth;
+}
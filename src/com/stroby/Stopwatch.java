@@ -0,0 +1,22 @@
+package com.stroby;
+
+/**
+ * Prints the milliseconds since start() was called. Every solver run has its own
+ * Stopwatch, so several runs can be timed at the same time.
+ */
+public final class Stopwatch {
+
+    private long started = System.nanoTime();
+
+    public void start(){
+        started = System.nanoTime();
+    }
+
+    public long elapsedNanos(){
+        return System.nanoTime() - started;
+    }
+
+    public void check(){
+        System.out.println(elapsedNanos() / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,134 @@
+package com.stroby;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates a maze with the EllerGenerator on one thread while a StreamingSolver consumes
+ * its rows on another, connected by a bounded queue of rows, so generating and solving
+ * overlap and neither ever holds more than a few rows. The memory needed only depends on the
+ * width, the number of rows can be anything.
+ *
+ * The solver only learns the distance from start to end. To get the path itself the rows are
+ * also streamed into a maze file, which is then mapped and solved by the WallFollowerSolver,
+ * again without holding the maze on the heap. Maze files have an int sized header, so only
+ * the distance can be found for more than Integer.MAX_VALUE rows.
+ */
+public final class StreamingMaze {
+
+    private static final int QUEUE_ROWS = 64;
+    private static final int[] LAST_ROW = new int[0];
+
+    private StreamingMaze() {}
+
+    /**
+     * Solves from (startX, 0) in the first row to (endX, height - 1) in the last row.
+     * @param spillFile maze file the rows are written to, to find the path afterwards, or null for the distance only
+     * @throws IllegalArgumentException if a spill file is given for more rows than a maze file holds
+     */
+    public static Result generateAndSolve(int width, long height, int startX, int endX, long seed, Path spillFile)
+            throws IOException, InterruptedException {
+        if (spillFile != null && height > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("A maze file holds at most " + Integer.MAX_VALUE + " rows, not " + height);
+        }
+        Point start = new Point(startX, 0);
+        Point end = spillFile == null ? null : new Point(endX, (int) (height - 1));
+        BlockingQueue<int[]> queue = new ArrayBlockingQueue<>(QUEUE_ROWS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread generator = new Thread(() -> {
+            try {
+                new EllerGenerator(width, seed).generate(height, row -> {
+                    try {
+                        queue.put(row);
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException("The solver gave up");
+                    }
+                });
+            } catch (InterruptedIOException e) {
+                return;
+            } catch (RuntimeException | Error | IOException e) {
+                failure.set(e);
+            }
+            try {
+                queue.put(LAST_ROW);
+            } catch (InterruptedException e) {
+                // the consumer gave up
+            }
+        }, "Eller generator");
+        generator.setDaemon(true);
+        generator.start();
+
+        StreamingSolver solver = new StreamingSolver(width, startX, 0, endX, height - 1);
+        try (MazeFile.Writer writer = spillFile == null ? null : new MazeFile.Writer(spillFile, width, (int) height, start, end, seed)){
+            for (int[] row = queue.take(); row != LAST_ROW; row = queue.take()){
+                solver.row(row);
+                if (writer != null){
+                    writer.writeRow(row);
+                }
+            }
+            if (failure.get() != null){
+                throw new IllegalStateException("Generating the maze failed", failure.get());
+            }
+        } finally {
+            generator.interrupt();
+        }
+        solver.finish();
+
+        CompactPath path = null;
+        if (spillFile != null && solver.isConnected()){
+            try (MappedMaze maze = MappedMaze.open(spillFile)){
+                path = WallFollowerSolver.solve(maze, start, end);
+            }
+        }
+        return new Result(solver.distance(), solver.getRows(), solver.getPeakNodes(), path);
+    }
+
+    public static final class Result {
+
+        private final long distance;
+        private final long rows;
+        private final int peakNodes;
+        private final CompactPath path;
+
+        Result(long distance, long rows, int peakNodes, CompactPath path){
+            this.distance = distance;
+            this.rows = rows;
+            this.peakNodes = peakNodes;
+            this.path = path;
+        }
+
+        /**
+         * @return the number of steps from start to end, or -1 if they are not connected
+         */
+        public long getDistance() {
+            return distance;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the largest working set of the solver in nodes
+         */
+        public int getPeakNodes() {
+            return peakNodes;
+        }
+
+        /**
+         * @return the path from start to end, or null if no spill file was given
+         */
+        public CompactPath getPath() {
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, distance " + distance + ", at most " + peakNodes + " nodes in memory";
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * Finds the distance from start to end in a perfect maze that arrives one row at a time,
+ * keeping memory proportional to the width only. The solver keeps a summary of the rows seen
+ * so far: the tree connecting start, end and the cells of the last row, with every chain of
+ * cells in between contracted into one weighted edge. A new row is added to the summary and
+ * the cells of the previous row, which are no longer needed to attach anything, are removed
+ * again: a cell left with one connection is cut off, one with two is replaced by an edge from
+ * neighbor to neighbor. What remains are the terminals (start, end, the last row, at most
+ * width + 2 nodes) and the cells where at least three of their branches meet, less than
+ * there are terminals.
+ *
+ * After the last row only start and end are left as terminals, which leaves them connected
+ * by a single edge, weighted with their distance, or not connected at all. The cells of the
+ * path are not known this way, StreamingMaze finds them in a spilled maze file afterwards.
+ */
+public final class StreamingSolver implements RowSink {
+
+    private static final int NONE = -1;
+    private static final int START = 1;
+    private static final int END = 2;
+
+    private final int width;
+    // rows are counted in longs, so start and end are not Points
+    private final int startX;
+    private final long startY;
+    private final int endX;
+    private final long endY;
+    private long rows;
+    private int peakNodes;
+
+    // the summary: node n has degree[n] neighbors in neighbor[4n..] with the weights in weight[4n..]
+    private int nodes;
+    private int[] degree;
+    private int[] neighbor;
+    private long[] weight;
+    private int[] kind; // START | END, 0 for other nodes
+    private boolean[] inRow; // cell of the last row
+    private final int[] rowNode; // node of every cell of the last row
+    // spare arrays the summary is compacted into after each row
+    private int[] nextDegree;
+    private int[] nextNeighbor;
+    private long[] nextWeight;
+    private int[] nextKind;
+    private boolean[] nextInRow;
+    private final boolean[] removed;
+    private final int[] renumber;
+    private final int[] worklist;
+
+    private long distance = NONE;
+    private boolean finished;
+
+    public StreamingSolver(int width, Point start, Point end){
+        this(width, start.getX(), start.getY(), end.getX(), end.getY());
+    }
+
+    public StreamingSolver(int width, int startX, long startY, int endX, long endY){
+        this.width = width;
+        this.startX = startX;
+        this.startY = startY;
+        this.endX = endX;
+        this.endY = endY;
+        // terminals plus branch cells plus the new row, see the class comment
+        int capacity = 3 * width + 8;
+        degree = new int[capacity];
+        neighbor = new int[4 * capacity];
+        weight = new long[4 * capacity];
+        kind = new int[capacity];
+        inRow = new boolean[capacity];
+        nextDegree = new int[capacity];
+        nextNeighbor = new int[4 * capacity];
+        nextWeight = new long[4 * capacity];
+        nextKind = new int[capacity];
+        nextInRow = new boolean[capacity];
+        removed = new boolean[capacity];
+        renumber = new int[capacity];
+        worklist = new int[capacity];
+        rowNode = new int[width];
+    }
+
+    @Override
+    public void row(int[] passages){
+        if (finished){
+            throw new IllegalStateException("The last row has been passed already");
+        }
+        int previousRow = nodes;
+        for (int x = 0; x < width; x++){
+            int node = nodes++;
+            degree[node] = 0;
+            inRow[node] = true;
+            kind[node] = (startX == x && startY == rows ? START : 0) | (endX == x && endY == rows ? END : 0);
+            if (rows > 0 && (passages[x] & Direction.N.bit) != 0){
+                connect(rowNode[x], node, 1);
+            }
+            if (x > 0 && (passages[x] & Direction.W.bit) != 0){
+                connect(node - 1, node, 1);
+            }
+        }
+        // the previous row is not a terminal anymore
+        int work = 0;
+        for (int x = 0; x < width; x++){
+            if (rows > 0){
+                inRow[rowNode[x]] = false;
+                worklist[work++] = rowNode[x];
+            }
+            rowNode[x] = previousRow + x;
+        }
+        peakNodes = Math.max(peakNodes, nodes);
+        contract(work);
+        rows++;
+    }
+
+    /**
+     * Call after the last row.
+     */
+    public void finish(){
+        if (finished){
+            return;
+        }
+        finished = true;
+        int work = 0;
+        for (int x = 0; x < width && rows > 0; x++){
+            inRow[rowNode[x]] = false;
+            worklist[work++] = rowNode[x];
+        }
+        contract(work);
+
+        int startNode = NONE;
+        for (int n = 0; n < nodes; n++){
+            if ((kind[n] & START) != 0){
+                startNode = n;
+            }
+        }
+        if (startNode == NONE || !endSeen()){
+            throw new IllegalStateException("Start (" + startX + ", " + startY + ") or end (" + endX + ", " + endY + ") is not in the " + rows + " rows");
+        }
+        if ((kind[startNode] & END) != 0){
+            distance = 0;
+        } else if (degree[startNode] == 1){
+            distance = weight[4 * startNode];
+        }
+    }
+
+    private boolean endSeen(){
+        for (int n = 0; n < nodes; n++){
+            if ((kind[n] & END) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of steps from start to end, or -1 if they are not connected
+     */
+    public long distance(){
+        if (!finished){
+            throw new IllegalStateException("Call finish after the last row first");
+        }
+        return distance;
+    }
+
+    public boolean isConnected(){
+        return distance() >= 0;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the most nodes the summary ever held, which only depends on the width
+     */
+    public int getPeakNodes() {
+        return peakNodes;
+    }
+
+    private void connect(int a, int b, long w){
+        neighbor[4 * a + degree[a]] = b;
+        weight[4 * a + degree[a]++] = w;
+        neighbor[4 * b + degree[b]] = a;
+        weight[4 * b + degree[b]++] = w;
+    }
+
+    /**
+     * Removes the edge to b from the neighbors of a.
+     * @return its weight
+     */
+    private long disconnect(int a, int b){
+        int base = 4 * a;
+        for (int k = 0; k < degree[a]; k++){
+            if (neighbor[base + k] == b){
+                long w = weight[base + k];
+                int last = --degree[a];
+                neighbor[base + k] = neighbor[base + last];
+                weight[base + k] = weight[base + last];
+                return w;
+            }
+        }
+        throw new IllegalStateException("No edge from " + a + " to " + b);
+    }
+
+    private boolean isTerminal(int node){
+        return inRow[node] || kind[node] != 0;
+    }
+
+    /**
+     * Removes the non terminal nodes with less than three neighbors, starting with the first
+     * work nodes of the worklist, then compacts the summary.
+     */
+    private void contract(int work){
+        Arrays.fill(removed, 0, nodes, false);
+        while (work > 0){
+            int node = worklist[--work];
+            if (removed[node] || isTerminal(node) || degree[node] > 2){
+                continue;
+            }
+            removed[node] = true;
+            if (degree[node] == 1){
+                int other = neighbor[4 * node];
+                disconnect(other, node);
+                worklist[work++] = other;
+            } else if (degree[node] == 2){
+                int a = neighbor[4 * node];
+                int b = neighbor[4 * node + 1];
+                long w = disconnect(a, node) + disconnect(b, node);
+                // the maze is a tree, so a and b are never already connected
+                connect(a, b, w);
+            }
+        }
+
+        int alive = 0;
+        for (int n = 0; n < nodes; n++){
+            renumber[n] = removed[n] ? NONE : alive++;
+        }
+        for (int n = 0; n < nodes; n++){
+            int m = renumber[n];
+            if (m == NONE){
+                continue;
+            }
+            nextDegree[m] = degree[n];
+            nextKind[m] = kind[n];
+            nextInRow[m] = inRow[n];
+            for (int k = 0; k < degree[n]; k++){
+                nextNeighbor[4 * m + k] = renumber[neighbor[4 * n + k]];
+                nextWeight[4 * m + k] = weight[4 * n + k];
+            }
+        }
+        for (int x = 0; x < width; x++){
+            rowNode[x] = renumber[rowNode[x]];
+        }
+        nodes = alive;
+
+        int[] swapInt = degree; degree = nextDegree; nextDegree = swapInt;
+        swapInt = neighbor; neighbor = nextNeighbor; nextNeighbor = swapInt;
+        long[] swapLong = weight; weight = nextWeight; nextWeight = swapLong;
+        swapInt = kind; kind = nextKind; nextKind = swapInt;
+        boolean[] swapBoolean = inRow; inRow = nextInRow; nextInRow = swapBoolean;
+    }
+}
@@ -0,0 +1,79 @@
+package com.stroby;
+
+/**
+ * Work counters of one solver thread. Solvers count in local variables and hand the totals
+ * over once when they finish, so the hot loops are not slowed down; the fields are only
+ * read after the thread has been joined. Solvers running many short tasks on a pool (tiles,
+ * fork/join branches) let all tasks of a kind record into one ThreadStats, so recording is
+ * synchronized.
+ */
+public final class ThreadStats {
+
+    private final String solver;
+    private final String thread;
+    private long cellsVisited;
+    private long backtracks;
+    private long peakDepth;
+    private long branchesShared;
+    private long idleNanos;
+
+    ThreadStats(String solver, String thread){
+        this.solver = solver;
+        this.thread = thread;
+    }
+
+    public synchronized void record(long cellsVisited, long backtracks, long peakDepth){
+        this.cellsVisited += cellsVisited;
+        this.backtracks += backtracks;
+        this.peakDepth = Math.max(this.peakDepth, peakDepth);
+
+        SolverThreadEvent event = new SolverThreadEvent();
+        if (event.shouldCommit()){
+            event.solver = solver;
+            event.thread = thread;
+            event.cellsVisited = cellsVisited;
+            event.backtracks = backtracks;
+            event.peakDepth = peakDepth;
+            event.commit();
+        }
+    }
+
+    public synchronized void recordSharing(long branchesShared, long idleNanos){
+        this.branchesShared += branchesShared;
+        this.idleNanos += idleNanos;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public synchronized long getCellsVisited() {
+        return cellsVisited;
+    }
+
+    public synchronized long getBacktracks() {
+        return backtracks;
+    }
+
+    public synchronized long getPeakDepth() {
+        return peakDepth;
+    }
+
+    public synchronized long getBranchesShared() {
+        return branchesShared;
+    }
+
+    public synchronized long getIdleNanos() {
+        return idleNanos;
+    }
+
+    synchronized String toJson(){
+        return "{\"solver\":\"" + solver + "\",\"thread\":\"" + thread + "\",\"cellsVisited\":" + cellsVisited
+                + ",\"backtracks\":" + backtracks + ",\"peakDepth\":" + peakDepth
+                + ",\"branchesShared\":" + branchesShared + ",\"idleNanos\":" + idleNanos + "}";
+    }
+}
@@ -0,0 +1,365 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical solver for very large mazes. The grid is cut into square tiles and
+ * the work happens in three phases:
+ *
+ * 1. In parallel, every tile labels the parts of the tile that are connected inside
+ *    the tile (its components), starting from the cells with a passage leaving the
+ *    tile and from start/end.
+ * 2. The components become the nodes of a small boundary graph whose edges are the
+ *    passages between tiles, and a breadth first search finds the route of components
+ *    from the start component to the end component.
+ * 3. In parallel, only the components on that route are expanded back into cells,
+ *    each between the cell it is entered through and the cell it is left through.
+ *
+ * The tiles are independent until the boundary graph is built, so phases 1 and 3 scale
+ * with the number of cores.
+ */
+public final class TiledSolver {
+
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    private final MazeGrid grid;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesY;
+    private final int start;
+    private final int end;
+
+    private final int[] component; // tile local component of every labeled cell, -1 if not labeled
+    private final int[] componentBase; // global id of the first component of every tile, one extra entry for the total
+
+    // shared by all tiles of a phase, null if not measured
+    private final ThreadStats labeling;
+    private final ThreadStats expansion;
+
+    private TiledSolver(MazeGrid grid, int tileSize, int start, int end, SolverMetrics metrics){
+        this.grid = grid;
+        this.tileSize = tileSize;
+        this.tilesX = (grid.getWidth() + tileSize - 1) / tileSize;
+        this.tilesY = (grid.getHeight() + tileSize - 1) / tileSize;
+        this.start = start;
+        this.end = end;
+        this.component = new int[grid.size()];
+        this.componentBase = new int[tilesX * tilesY + 1];
+        this.labeling = metrics == null ? null : metrics.thread("Tiled", "labeling");
+        this.expansion = metrics == null ? null : metrics.thread("Tiled", "expansion");
+    }
+
+    public static int[] solve(MazeGrid grid, int start, int end, int threads){
+        return solve(grid, start, end, threads, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @return the path from start to end as cell indices, or null if end can not be reached
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads, int tileSize){
+        return solve(grid, start, end, threads, tileSize, null);
+    }
+
+    /**
+     * @param metrics receives one ThreadStats for the labeling of all tiles and one for the expansion, may be null
+     */
+    public static int[] solve(MazeGrid grid, int start, int end, int threads, int tileSize, SolverMetrics metrics){
+        return new TiledSolver(grid, tileSize, start, end, metrics).run(threads);
+    }
+
+    private int[] run(int threads){
+        int tiles = tilesX * tilesY;
+        Arrays.fill(component, -1);
+
+        // phase 1: label the components of every tile
+        int[] counts = new int[tiles];
+        Parallel.forEach(threads, tiles, tile -> counts[tile] = labelTile(tile));
+        for (int tile = 0; tile < tiles; tile++){
+            componentBase[tile + 1] = componentBase[tile] + counts[tile];
+        }
+
+        // phase 2: route through the boundary graph
+        int[][] crossings = new int[tiles][];
+        Parallel.forEach(threads, tiles, tile -> crossings[tile] = crossingsOf(tile));
+        int[] route = route(crossings);
+        if (route == null){
+            return null;
+        }
+
+        // phase 3: expand the components on the route, route holds (entry, exit) cell pairs
+        int segments = route.length / 2;
+        int[][] parts = new int[segments][];
+        Parallel.forEach(threads, segments, i -> parts[i] = pathInTile(route[2 * i], route[2 * i + 1]));
+
+        int length = 0;
+        for (int[] part : parts){
+            length += part.length;
+        }
+        int[] path = new int[length];
+        int index = 0;
+        for (int[] part : parts){
+            System.arraycopy(part, 0, path, index, part.length);
+            index += part.length;
+        }
+        return path;
+    }
+
+    private int tileOf(int cell){
+        return (grid.y(cell) / tileSize) * tilesX + grid.x(cell) / tileSize;
+    }
+
+    private int globalComponent(int cell){
+        return componentBase[tileOf(cell)] + component[cell];
+    }
+
+    private boolean inTile(int tile, int x, int y){
+        int x0 = (tile % tilesX) * tileSize;
+        int y0 = (tile / tilesX) * tileSize;
+        return x0 <= x && x < x0 + tileSize && y0 <= y && y < y0 + tileSize && grid.contains(x, y);
+    }
+
+    /**
+     * Floods every component of the tile that contains start, end or a cell with a passage
+     * leaving the tile.
+     * @return the number of components found
+     */
+    private int labelTile(int tile){
+        int x0 = (tile % tilesX) * tileSize;
+        int y0 = (tile / tilesX) * tileSize;
+        int x1 = Math.min(x0 + tileSize, grid.getWidth());
+        int y1 = Math.min(y0 + tileSize, grid.getHeight());
+
+        int[] stack = new int[(x1 - x0) * (y1 - y0)];
+        long[] counts = new long[3]; // cells visited, backtracks, peak depth
+        int count = 0;
+        if (tileOf(start) == tile && component[start] < 0){
+            flood(tile, start, count++, stack, counts);
+        }
+        if (tileOf(end) == tile && component[end] < 0){
+            flood(tile, end, count++, stack, counts);
+        }
+        for (int y = y0; y < y1; y++){
+            for (int x = x0; x < x1; x++){
+                if (y != y0 && y != y1 - 1 && x != x0 && x != x1 - 1){
+                    x = x1 - 2; // skip the inside of the tile
+                    continue;
+                }
+                int cell = grid.index(x, y);
+                if (component[cell] < 0 && leavesTile(tile, cell)){
+                    flood(tile, cell, count++, stack, counts);
+                }
+            }
+        }
+        if (labeling != null){
+            labeling.record(counts[0], counts[1], counts[2]);
+        }
+        return count;
+    }
+
+    private boolean leavesTile(int tile, int cell){
+        int passages = grid.passages(cell);
+        Direction[] dirs = Direction.values();
+        for (int dir = 0; dir < dirs.length; dir++){
+            if ((passages & dirs[dir].bit) != 0 && !inTile(tile, grid.x(cell) + dirs[dir].dx, grid.y(cell) + dirs[dir].dy)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flood(int tile, int first, int label, int[] stack, long[] counts){
+        Direction[] dirs = Direction.values();
+        component[first] = label;
+        stack[0] = first;
+        int size = 1;
+        counts[0]++;
+        while (size > 0){
+            int current = stack[--size];
+            int before = size;
+            int passages = grid.passages(current);
+            for (int dir = 0; dir < dirs.length; dir++){
+                if ((passages & dirs[dir].bit) == 0
+                        || !inTile(tile, grid.x(current) + dirs[dir].dx, grid.y(current) + dirs[dir].dy)){
+                    continue;
+                }
+                int neighbor = grid.neighbor(current, dir);
+                if (component[neighbor] < 0){
+                    component[neighbor] = label;
+                    stack[size++] = neighbor;
+                }
+            }
+            counts[0] += size - before;
+            if (size == before){
+                counts[1]++;
+            }
+            counts[2] = Math.max(counts[2], size);
+        }
+    }
+
+    /**
+     * @return the passages from this tile into its east and south neighbor tiles as (from, to) cell pairs
+     */
+    private int[] crossingsOf(int tile){
+        int x0 = (tile % tilesX) * tileSize;
+        int y0 = (tile / tilesX) * tileSize;
+        int x1 = Math.min(x0 + tileSize, grid.getWidth());
+        int y1 = Math.min(y0 + tileSize, grid.getHeight());
+
+        int[] pairs = new int[2 * ((x1 - x0) + (y1 - y0))];
+        int size = 0;
+        if (x1 < grid.getWidth()){
+            for (int y = y0; y < y1; y++){
+                int cell = grid.index(x1 - 1, y);
+                if (grid.hasPassage(cell, Direction.E.ordinal())){
+                    pairs[size++] = cell;
+                    pairs[size++] = grid.neighbor(cell, Direction.E.ordinal());
+                }
+            }
+        }
+        if (y1 < grid.getHeight()){
+            for (int x = x0; x < x1; x++){
+                int cell = grid.index(x, y1 - 1);
+                if (grid.hasPassage(cell, Direction.S.ordinal())){
+                    pairs[size++] = cell;
+                    pairs[size++] = grid.neighbor(cell, Direction.S.ordinal());
+                }
+            }
+        }
+        return Arrays.copyOf(pairs, size);
+    }
+
+    /**
+     * Breadth first search over the components.
+     * @return (entry, exit) cell pairs of every component on the route from start to end, or null
+     */
+    private int[] route(int[][] crossings){
+        int components = componentBase[componentBase.length - 1];
+
+        // adjacency in compressed rows, every entry is the crossing cell pair (from, to) seen from the component
+        int[] degree = new int[components + 1];
+        for (int[] pairs : crossings){
+            for (int i = 0; i < pairs.length; i += 2){
+                degree[globalComponent(pairs[i]) + 1]++;
+                degree[globalComponent(pairs[i + 1]) + 1]++;
+            }
+        }
+        for (int c = 0; c < components; c++){
+            degree[c + 1] += degree[c];
+        }
+        int[] fill = Arrays.copyOf(degree, components);
+        int[] adjacentFrom = new int[degree[components]];
+        int[] adjacentTo = new int[degree[components]];
+        for (int[] pairs : crossings){
+            for (int i = 0; i < pairs.length; i += 2){
+                int a = globalComponent(pairs[i]);
+                int b = globalComponent(pairs[i + 1]);
+                adjacentFrom[fill[a]] = pairs[i];
+                adjacentTo[fill[a]++] = pairs[i + 1];
+                adjacentFrom[fill[b]] = pairs[i + 1];
+                adjacentTo[fill[b]++] = pairs[i];
+            }
+        }
+
+        int first = globalComponent(start);
+        int last = globalComponent(end);
+        int[] entry = new int[components]; // cell the component was entered through
+        int[] leftThrough = new int[components]; // cell of the previous component the crossing started from
+        int[] previous = new int[components];
+        Arrays.fill(previous, -1);
+        previous[first] = first;
+        entry[first] = start;
+        int[] queue = new int[components];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = first;
+        while (head < tail && previous[last] < 0){
+            int c = queue[head++];
+            for (int i = degree[c]; i < degree[c + 1]; i++){
+                int next = globalComponent(adjacentTo[i]);
+                if (previous[next] < 0){
+                    previous[next] = c;
+                    entry[next] = adjacentTo[i];
+                    leftThrough[next] = adjacentFrom[i];
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (previous[last] < 0){
+            return null;
+        }
+
+        int hops = 1;
+        for (int c = last; c != first; c = previous[c]){
+            hops++;
+        }
+        int[] route = new int[2 * hops];
+        int exit = end;
+        int c = last;
+        for (int i = hops - 1; i >= 0; i--){
+            route[2 * i] = entry[c];
+            route[2 * i + 1] = exit;
+            exit = leftThrough[c];
+            c = previous[c];
+        }
+        return route;
+    }
+
+    /**
+     * Breadth first search restricted to the tile of from.
+     */
+    private int[] pathInTile(int from, int to){
+        int tile = tileOf(from);
+        int x0 = (tile % tilesX) * tileSize;
+        int y0 = (tile / tilesX) * tileSize;
+        int w = Math.min(x0 + tileSize, grid.getWidth()) - x0;
+        int h = Math.min(y0 + tileSize, grid.getHeight()) - y0;
+
+        int[] previous = new int[w * h]; // tile local index of the previous cell plus one, 0 if not reached
+        int[] queue = new int[w * h];
+        int head = 0;
+        int tail = 0;
+        int local = (grid.y(from) - y0) * w + grid.x(from) - x0;
+        int target = (grid.y(to) - y0) * w + grid.x(to) - x0;
+        previous[local] = local + 1;
+        queue[tail++] = local;
+        Direction[] dirs = Direction.values();
+        long backtracks = 0;
+        int peakDepth = 1;
+        while (head < tail && previous[target] == 0){
+            int current = queue[head++];
+            int before = tail;
+            int cx = current % w;
+            int cy = current / w;
+            int passages = grid.passages(x0 + cx, y0 + cy);
+            for (int dir = 0; dir < dirs.length; dir++){
+                int nx = cx + dirs[dir].dx;
+                int ny = cy + dirs[dir].dy;
+                if ((passages & dirs[dir].bit) == 0 || nx < 0 || nx >= w || ny < 0 || ny >= h){
+                    continue;
+                }
+                int next = ny * w + nx;
+                if (previous[next] == 0){
+                    previous[next] = current + 1;
+                    queue[tail++] = next;
+                }
+            }
+            if (tail == before){
+                backtracks++;
+            }
+            peakDepth = Math.max(peakDepth, tail - head);
+        }
+        if (expansion != null){
+            expansion.record(tail, backtracks, peakDepth);
+        }
+
+        int length = 1;
+        for (int c = target; c != local; c = previous[c] - 1){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1, c = target; i >= 0; i--, c = previous[c] - 1){
+            path[i] = grid.index(x0 + c % w, y0 + c / w);
+        }
+        return path;
+    }
+}
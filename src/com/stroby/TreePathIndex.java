@@ -0,0 +1,165 @@
+package com.stroby;
+
+import java.util.Arrays;
+
+/**
+ * Answers path queries between any two cells of a perfect maze without searching. A perfect
+ * maze is a spanning tree over its cells, so the index roots that tree once and splits it
+ * into heavy paths (heavy-light decomposition): the lowest common ancestor of two cells is
+ * then found by jumping along at most O(log n) heavy paths, which gives the distance between
+ * them in O(log n) and the path itself in O(log n + path length).
+ *
+ * Building takes O(n) time; the index keeps three int arrays of n entries.
+ */
+public final class TreePathIndex {
+
+    private final MazeGrid grid;
+    private final int[] parent;
+    private final int[] depth;
+    private final int[] head; // top cell of the heavy path the cell is on
+
+    private TreePathIndex(MazeGrid grid){
+        int n = grid.size();
+        this.grid = grid;
+        this.parent = new int[n];
+        this.depth = new int[n];
+        this.head = new int[n];
+    }
+
+    /**
+     * @param grid a perfect maze, i.e. generated without cycles
+     */
+    public static TreePathIndex build(MazeGrid grid){
+        TreePathIndex index = new TreePathIndex(grid);
+        index.build();
+        return index;
+    }
+
+    private void build(){
+        int n = grid.size();
+
+        // breadth first order from root 0: parents always come before their children
+        int[] order = new int[n];
+        Arrays.fill(parent, -1);
+        parent[0] = 0;
+        order[0] = 0;
+        int visited = 1;
+        for (int i = 0; i < visited; i++){
+            int cell = order[i];
+            int neighbors = grid.neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = grid.neighborAt(cell, k);
+                if (parent[next] < 0){
+                    parent[next] = cell;
+                    depth[next] = depth[cell] + 1;
+                    order[visited++] = next;
+                }
+            }
+        }
+        if (visited != n){
+            throw new IllegalArgumentException("The maze is not connected, only " + visited + " of " + n + " cells reachable");
+        }
+
+        // subtree sizes bottom up, kept in head for the moment
+        int[] size = head;
+        int[] heavy = new int[n]; // child with the largest subtree, -1 for leaves
+        Arrays.fill(size, 1);
+        Arrays.fill(heavy, -1);
+        for (int i = n - 1; i > 0; i--){
+            int cell = order[i];
+            int up = parent[cell];
+            size[up] += size[cell];
+        }
+        for (int i = n - 1; i > 0; i--){
+            int cell = order[i];
+            int up = parent[cell];
+            if (heavy[up] < 0 || size[cell] > size[heavy[up]]){
+                heavy[up] = cell;
+            }
+        }
+
+        // every cell that is not the heavy child of its parent starts a heavy path
+        for (int i = 0; i < n; i++){
+            int top = order[i];
+            if (i > 0 && heavy[parent[top]] == top){
+                continue;
+            }
+            for (int cell = top; cell >= 0; cell = heavy[cell]){
+                head[cell] = top;
+            }
+        }
+    }
+
+    public int lowestCommonAncestor(int a, int b){
+        while (head[a] != head[b]){
+            if (depth[head[a]] > depth[head[b]]){
+                a = parent[head[a]];
+            } else {
+                b = parent[head[b]];
+            }
+        }
+        return depth[a] < depth[b] ? a : b;
+    }
+
+    /**
+     * @return the approximate heap size of the index in bytes, without the grid it was built from
+     */
+    public long sizeInBytes(){
+        return 4L * (parent.length + depth.length + head.length);
+    }
+
+    /**
+     * @return the number of steps between the two cells
+     */
+    public int distance(int a, int b){
+        return depth[a] + depth[b] - 2 * depth[lowestCommonAncestor(a, b)];
+    }
+
+    /**
+     * @return the path from a to b as cell indices
+     */
+    public int[] path(int a, int b){
+        int ancestor = lowestCommonAncestor(a, b);
+        int up = depth[a] - depth[ancestor];
+        int[] path = new int[up + depth[b] - depth[ancestor] + 1];
+        int i = 0;
+        for (int cell = a; cell != ancestor; cell = parent[cell]){
+            path[i++] = cell;
+        }
+        for (int cell = b, j = path.length - 1; j >= up; cell = parent[cell], j--){
+            path[j] = cell;
+        }
+        return path;
+    }
+
+    /**
+     * Distances for many queries at once, spread over the given number of threads.
+     * The index is read only after build, so queries need no synchronization.
+     */
+    public void distances(int[] from, int[] to, int[] result, int threads){
+        int chunk = 1 << 14;
+        int chunks = (from.length + chunk - 1) / chunk;
+        Parallel.forEach(threads, chunks, c -> {
+            int last = Math.min(from.length, (c + 1) * chunk);
+            for (int i = c * chunk; i < last; i++){
+                result[i] = distance(from[i], to[i]);
+            }
+        });
+    }
+
+    /**
+     * Paths for many queries at once, spread over the given number of threads.
+     */
+    public int[][] paths(int[] from, int[] to, int threads){
+        int[][] result = new int[from.length][];
+        int chunk = 1 << 10;
+        int chunks = (from.length + chunk - 1) / chunk;
+        Parallel.forEach(threads, chunks, c -> {
+            int last = Math.min(from.length, (c + 1) * chunk);
+            for (int i = c * chunk; i < last; i++){
+                result[i] = path(from[i], to[i]);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.stroby;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernels of DeadEndFillingSolver on SIMD registers, as many words at once as the CPU
+ * supports. Only loaded when the jdk.incubator.vector module is present; the words that do
+ * not fill a whole vector at the end of a row are left to the scalar kernel.
+ */
+final class VectorDeadEndKernel implements DeadEndFillingSolver.Kernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private final DeadEndFillingSolver.Kernel tail = new DeadEndFillingSolver.ScalarKernel();
+
+    @Override
+    public boolean deadMask(long[] north, long[] south, long[] east, long[] west, long[] protect, long[] dead, int from, int to) {
+        LongVector any = LongVector.zero(SPECIES);
+        int i = from;
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()){
+            LongVector n = LongVector.fromArray(SPECIES, north, i);
+            LongVector s = LongVector.fromArray(SPECIES, south, i);
+            LongVector e = LongVector.fromArray(SPECIES, east, i);
+            LongVector w = LongVector.fromArray(SPECIES, west, i);
+            LongVector twoOrMore = n.and(s).or(n.and(e)).or(n.and(w)).or(s.and(e)).or(s.and(w)).or(e.and(w));
+            LongVector d = n.or(s).or(e).or(w)
+                    .and(twoOrMore.not())
+                    .and(LongVector.fromArray(SPECIES, protect, i).not());
+            d.intoArray(dead, i);
+            any = any.or(d);
+        }
+        boolean found = any.reduceLanes(VectorOperators.OR) != 0;
+        return tail.deadMask(north, south, east, west, protect, dead, i, to) | found;
+    }
+
+    @Override
+    public void clear(long[] north, long[] south, long[] east, long[] west, long[] dead, int from, int to, int stride) {
+        int i = from;
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()){
+            LongVector d = LongVector.fromArray(SPECIES, dead, i);
+            LongVector above = LongVector.fromArray(SPECIES, dead, i - stride);
+            LongVector below = LongVector.fromArray(SPECIES, dead, i + stride);
+            // the guard words keep i - 1 and i + 1 inside the row
+            LongVector right = LongVector.fromArray(SPECIES, dead, i + 1);
+            LongVector left = LongVector.fromArray(SPECIES, dead, i - 1);
+            LongVector eastDead = d.lanewise(VectorOperators.LSHR, 1)
+                    .or(right.lanewise(VectorOperators.LSHL, 63));
+            LongVector westDead = d.lanewise(VectorOperators.LSHL, 1)
+                    .or(left.lanewise(VectorOperators.LSHR, 63));
+            LongVector.fromArray(SPECIES, north, i).and(d.or(above).not()).intoArray(north, i);
+            LongVector.fromArray(SPECIES, south, i).and(d.or(below).not()).intoArray(south, i);
+            LongVector.fromArray(SPECIES, east, i).and(d.or(eastDead).not()).intoArray(east, i);
+            LongVector.fromArray(SPECIES, west, i).and(d.or(westDead).not()).intoArray(west, i);
+        }
+        tail.clear(north, south, east, west, dead, i, to, stride);
+    }
+}
@@ -0,0 +1,57 @@
+package com.stroby;
+
+/**
+ * Keeps the left hand on the wall from start until end is reached. In a perfect maze this
+ * always finds the end, and it needs no visited flags or other state per cell, so it can
+ * solve mazes that are only available as a MazeView, e.g. a MappedMaze larger than the heap.
+ *
+ * The path is kept as a CompactPath.Builder (2 bits per step) used as a stack: a step back
+ * against the direction of the last step leaves a dead end and removes that step, so the
+ * builder always holds the path from start to the current cell.
+ */
+public final class WallFollowerSolver {
+
+    // LEFT[dir] / RIGHT[dir]: the direction to the left / right of dir, by Direction ordinal
+    private static final int[] LEFT = {Direction.W.ordinal(), Direction.E.ordinal(), Direction.N.ordinal(), Direction.S.ordinal()};
+    private static final int[] RIGHT = {Direction.E.ordinal(), Direction.W.ordinal(), Direction.S.ordinal(), Direction.N.ordinal()};
+
+    private WallFollowerSolver() {}
+
+    /**
+     * @return the path from start to end, or null if end can not be reached
+     */
+    public static CompactPath solve(MazeView maze, Point start, Point end){
+        Direction[] dirs = Direction.values();
+        CompactPath.Builder path = new CompactPath.Builder(start.getX(), start.getY());
+
+        int x = start.getX();
+        int y = start.getY();
+        int heading = Direction.S.ordinal();
+        // a wall follower that returns to start in the same heading has walked around everything it can reach
+        long limit = 4L * maze.getWidth() * maze.getHeight() + 4;
+        for (long steps = 0; x != end.getX() || y != end.getY(); steps++){
+            if (steps > limit){
+                return null;
+            }
+            int passages = maze.passages(x, y);
+            if (passages == 0){
+                return null;
+            }
+
+            int dir = LEFT[heading];
+            while ((passages & dirs[dir].bit) == 0){
+                dir = RIGHT[dir];
+            }
+
+            if (path.last() == MazeGrid.opposite(dir)){
+                path.removeLast();
+            } else {
+                path.add(dir);
+            }
+            x += dirs[dir].dx;
+            y += dirs[dir].dy;
+            heading = dir;
+        }
+        return path.build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+class AtomicBitSetTest {
+
+    @Test
+    void claimsEveryBitOnce(){
+        AtomicBitSet bits = new AtomicBitSet(130);
+        assertFalse(bits.get(0));
+        assertTrue(bits.claim(0));
+        assertFalse(bits.claim(0));
+        assertTrue(bits.get(0));
+        // bits in the same word and at the end of the last one stay independent
+        assertTrue(bits.claim(63));
+        assertTrue(bits.claim(64));
+        assertTrue(bits.claim(129));
+        assertFalse(bits.get(1));
+        assertFalse(bits.get(128));
+    }
+
+    @Test
+    void concurrentClaimsHaveOneWinnerPerBit() throws InterruptedException {
+        int size = 1 << 16;
+        int threads = 8;
+        AtomicBitSet bits = new AtomicBitSet(size);
+        AtomicIntegerArray winners = new AtomicIntegerArray(size);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++){
+            int offset = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // every thread walks all bits, starting somewhere else, so neighbors in a word are claimed at the same time
+                for (int i = 0; i < size; i++){
+                    int index = (i + offset * (size / threads)) % size;
+                    if (bits.claim(index)){
+                        winners.incrementAndGet(index);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        go.countDown();
+        for (Thread worker : workers){
+            worker.join();
+        }
+
+        for (int i = 0; i < size; i++){
+            assertEquals(1, winners.get(i), "winners of bit " + i);
+            assertTrue(bits.get(i));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Starts real BandWorker processes, from the class path the tests run with.
+ */
+class DistributedSolverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bandsTogetherFindThePath() throws IOException {
+        for (int workers : new int[]{1, 3}){
+            SequentialMaze maze = TestMazes.maze(40, 31, 7);
+            MazeGrid grid = maze.getGrid();
+            int start = grid.index(maze.getStart());
+            int end = grid.index(maze.getEnd());
+
+            Point[] path = DistributedSolver.solve(maze, workers);
+            TestMazes.assertValidPath(grid, path, start, end);
+            assertEquals(TestMazes.bfsLength(grid, start, end), path.length);
+        }
+    }
+
+    @Test
+    void moreWorkersThanRows() throws IOException {
+        SequentialMaze maze = TestMazes.maze(12, 2, 3);
+        MazeGrid grid = maze.getGrid();
+        Point[] path = DistributedSolver.solve(maze, 5);
+        TestMazes.assertValidPath(grid, path, grid.index(maze.getStart()), grid.index(maze.getEnd()));
+    }
+
+    @Test
+    void unreachableEnd() throws IOException {
+        SequentialMaze maze = TestMazes.maze(20, 20, 5);
+        MazeGrid grid = maze.getGrid();
+        int end = grid.index(maze.getEnd());
+        for (int dir = 0; dir < 4; dir++){
+            if (grid.hasPassage(end, dir)){
+                grid.closeWall(end, dir);
+            }
+        }
+        Path file = directory.resolve("walled.maze");
+        MazeFile.write(file, maze);
+
+        assertNull(DistributedSolver.solve(file, 3));
+    }
+}
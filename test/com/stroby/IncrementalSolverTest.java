@@ -0,0 +1,135 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class IncrementalSolverTest {
+
+    @Test
+    void rejectsWallsOnTheBorderWithoutChangingTheMaze(){
+        SequentialMaze maze = TestMazes.maze(4, 4, 1);
+        MazeGrid grid = maze.getGrid();
+        IncrementalSolver solver = new IncrementalSolver(grid, grid.index(maze.getStart()), grid.index(maze.getEnd()));
+        int[] passages = passages(grid);
+        int[] path = solver.path();
+
+        // east of the last column would be the first cell of the next row, east of the last cell is outside of the grid
+        assertThrows(IllegalArgumentException.class, () -> solver.open(grid.index(3, 1), Direction.E.ordinal()));
+        assertThrows(IllegalArgumentException.class, () -> solver.open(grid.index(3, 3), Direction.E.ordinal()));
+        assertThrows(IllegalArgumentException.class, () -> solver.open(grid.index(0, 2), Direction.W.ordinal()));
+        assertThrows(IllegalArgumentException.class, () -> solver.close(grid.index(2, 0), Direction.N.ordinal()));
+        assertThrows(IllegalArgumentException.class, () -> solver.close(grid.index(1, 3), Direction.S.ordinal()));
+        assertThrows(IllegalArgumentException.class, () -> solver.open(grid.index(1, 1), 4));
+        assertThrows(IllegalArgumentException.class, () -> solver.close(grid.size(), Direction.N.ordinal()));
+
+        assertArrayEquals(passages, passages(grid));
+        assertArrayEquals(path, solver.path());
+    }
+
+    @Test
+    void openingBetweenTwoPathCellsCutsTheLoop(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 2);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        IncrementalSolver solver = new IncrementalSolver(grid, start, end);
+        int[] path = solver.path();
+
+        int[] shortcut = shortcut(grid, path);
+        solver.open(shortcut[0], shortcut[1]);
+
+        assertTrue(solver.path().length < path.length);
+        TestMazes.assertShortestPath(grid, solver.path(), start, end);
+    }
+
+    @Test
+    void closingThePathRepairsItOrReportsNoPath(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 42);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        IncrementalSolver solver = new IncrementalSolver(grid, start, end);
+
+        // the path takes the shortcut, closing it again has to repair the path around the old loop
+        int[] original = solver.path();
+        int[] shortcut = shortcut(grid, original);
+        solver.open(shortcut[0], shortcut[1]);
+        solver.close(shortcut[0], shortcut[1]);
+        TestMazes.assertValidPath(grid, solver.path(), start, end);
+        assertArrayEquals(original, solver.path());
+
+        // the maze is perfect again, cutting the only path separates start from end
+        int[] path = solver.path();
+        int dir = grid.directionTo(path[path.length - 2], end);
+        solver.close(path[path.length - 2], dir);
+        assertFalse(solver.isSolved());
+        assertNull(solver.path());
+        solver.open(path[path.length - 2], dir);
+        TestMazes.assertShortestPath(grid, solver.path(), start, end);
+    }
+
+    @Test
+    void followsRandomEditsInsideTheMaze(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 1);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        IncrementalSolver solver = new IncrementalSolver(grid, start, end);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 500; i++){
+            int cell = random.nextInt(grid.size());
+            Direction dir = Direction.values()[random.nextInt(4)];
+            if (!grid.contains(grid.x(cell) + dir.dx, grid.y(cell) + dir.dy)){
+                continue;
+            }
+            if (random.nextInt(3) != 0){
+                solver.open(cell, dir.ordinal());
+            } else {
+                solver.close(cell, dir.ordinal());
+            }
+
+            int reachable = TestMazes.bfsLength(grid, start, end);
+            assertEquals(reachable > 0, solver.isSolved(), "after edit " + i);
+            if (reachable > 0){
+                TestMazes.assertValidPath(grid, solver.path(), start, end);
+            }
+        }
+    }
+
+    private static int[] passages(MazeGrid grid){
+        int[] passages = new int[grid.size()];
+        for (int cell = 0; cell < grid.size(); cell++){
+            passages[cell] = grid.passages(cell);
+        }
+        return passages;
+    }
+
+    /**
+     * @return a cell of the path and the direction of a wall to a later cell of the path that is not the next one
+     */
+    private static int[] shortcut(MazeGrid grid, int[] path){
+        int[] position = new int[grid.size()];
+        for (int i = 0; i < path.length; i++){
+            position[path[i]] = i + 1;
+        }
+        for (int i = 0; i < path.length; i++){
+            for (Direction dir : Direction.values()){
+                int x = grid.x(path[i]) + dir.dx;
+                int y = grid.y(path[i]) + dir.dy;
+                if (grid.contains(x, y) && position[grid.index(x, y)] > i + 2){
+                    return new int[]{path[i], dir.ordinal()};
+                }
+            }
+        }
+        throw new IllegalStateException("the path has no shortcut");
+    }
+}
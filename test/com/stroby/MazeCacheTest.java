@@ -0,0 +1,71 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class MazeCacheTest {
+
+    private static MazeCache.Key key(long seed){
+        return new MazeCache.Key(40, 30, new Point(39, 0), new Point(0, 29), seed);
+    }
+
+    @Test
+    void countsOneLookupPerStructure(){
+        MazeCache cache = new MazeCache(Long.MAX_VALUE);
+
+        TreePathIndex index = cache.treePathIndex(key(1));
+        // the index and its maze are both missing
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        assertSame(index, cache.treePathIndex(key(1)));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        cache.junctionGraph(key(1));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void evictsDerivedStructuresWithTheirMaze(){
+        MazeCache unlimited = new MazeCache(Long.MAX_VALUE);
+        unlimited.treePathIndex(key(1));
+        // room for one maze and its index
+        MazeCache cache = new MazeCache(unlimited.getBytes());
+
+        SequentialMaze first = cache.maze(key(1));
+        TreePathIndex index = cache.treePathIndex(key(1));
+        assertEquals(unlimited.getBytes(), cache.getBytes());
+
+        // the maze is the least recently used entry, its index holds the grid and goes with it
+        SequentialMaze second = cache.maze(key(2));
+        assertEquals(2, cache.getEvictions());
+        assertEquals(second.sizeInBytes(), cache.getBytes());
+
+        assertNotSame(index, cache.treePathIndex(key(1)));
+        assertNotSame(first, cache.maze(key(1)));
+    }
+
+    @Test
+    void usingADerivedStructureKeepsItsMaze(){
+        MazeCache unlimited = new MazeCache(Long.MAX_VALUE);
+        unlimited.maze(key(2));
+        unlimited.treePathIndex(key(1));
+        // room for two mazes and one index
+        MazeCache cache = new MazeCache(unlimited.getBytes());
+
+        TreePathIndex index = cache.treePathIndex(key(1));
+        SequentialMaze second = cache.maze(key(2));
+        assertSame(index, cache.treePathIndex(key(1)));
+        cache.maze(key(3));
+
+        // the second maze is the least recently used entry, not the first one with its index
+        assertEquals(1, cache.getEvictions());
+        assertSame(index, cache.treePathIndex(key(1)));
+        assertNotSame(second, cache.maze(key(2)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class SolveRaceTest {
+
+    /**
+     * A solver that never finds anything and gives up once told to stop.
+     */
+    private static Function<SolveControl, int[]> endless(CountDownLatch stopped){
+        return control -> {
+            long cells = 0;
+            while (!control.checkpoint(++cells, 1)){
+                Thread.onSpinWait();
+            }
+            stopped.countDown();
+            return null;
+        };
+    }
+
+    @Test
+    void firstPathWinsAndStopsTheOthers() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(2);
+        SolveRace race = SolveRace.start(List.of("slow 1", "fast", "slow 2"),
+                List.of(endless(stopped), control -> new int[]{1, 2, 3}, endless(stopped)), Duration.ofMinutes(1));
+
+        assertArrayEquals(new int[]{1, 2, 3}, race.result().join());
+        assertTrue(stopped.await(10, TimeUnit.SECONDS), "the losers did not stop");
+        for (SolveControl control : race.controls()){
+            assertTrue(control.isCancelled(), control.getName());
+        }
+    }
+
+    @Test
+    void deadlineFailsTheRaceAndStopsEverySolver() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(2);
+        SolveRace race = SolveRace.start(List.of("a", "b"), List.of(endless(stopped), endless(stopped)), Duration.ofMillis(50));
+
+        CompletionException e = assertThrows(CompletionException.class, () -> race.result().join());
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(stopped.await(10, TimeUnit.SECONDS), "the solvers did not stop");
+        assertTrue(race.cellsExplored() > 0);
+    }
+
+    @Test
+    void cancellingStopsEverySolver() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(2);
+        SolveRace race = SolveRace.start(List.of("a", "b"), List.of(endless(stopped), endless(stopped)), null);
+
+        race.result().cancel(true);
+        assertThrows(CancellationException.class, () -> race.result().join());
+        assertTrue(stopped.await(10, TimeUnit.SECONDS), "the solvers did not stop");
+    }
+
+    @Test
+    void completesWithNullIfNobodyFindsAPath(){
+        SolveRace race = SolveRace.start(List.of("a", "b"), List.of(control -> null, control -> null), null);
+        assertNull(race.result().join());
+    }
+
+    @Test
+    void failsWithTheExceptionOfASolverIfNobodyFindsAPath(){
+        IllegalStateException failure = new IllegalStateException("broken");
+        SolveRace race = SolveRace.start(List.of("a", "b"), List.of(control -> null, control -> { throw failure; }), null);
+
+        CompletionException e = assertThrows(CompletionException.class, () -> race.result().join());
+        assertEquals(failure, e.getCause());
+    }
+
+    @Test
+    void nodeSolverRaceFindsThePath(){
+        SequentialMaze maze = TestMazes.maze(150, 140, 42);
+        NodeSolver solver = new NodeSolver(maze);
+        SolveRace race = solver.solveAsync(new int[][]{{0}, {1}, {2}}, Duration.ofMinutes(1), new SolverMetrics());
+
+        TestMazes.assertShortestPath(maze.getGrid(), race.result().join(), solver.getStart(), solver.getEnd());
+    }
+}
@@ -0,0 +1,274 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Every solver on perfect mazes of several shapes and seeds. A perfect maze has exactly one
+ * path from start to end, so every solver has to find the one the breadth first search finds.
+ */
+class SolverTest {
+
+    private static final String[] SOLVERS = {"node", "cooperative", "tiled", "bidirectional", "forkjoin", "branch",
+            "deadend", "bfs", "astar", "junction", "tree"};
+
+    static Stream<Arguments> mazes(){
+        List<Arguments> arguments = new ArrayList<>();
+        for (int[] size : TestMazes.SIZES){
+            for (long seed : TestMazes.SEEDS){
+                arguments.add(Arguments.of(size[0], size[1], seed));
+            }
+        }
+        return arguments.stream();
+    }
+
+    static Stream<Arguments> solversAndMazes(){
+        return Stream.of(SOLVERS).flatMap(solver -> mazes().map(maze -> Arguments.of(solver, maze.get()[0], maze.get()[1], maze.get()[2])));
+    }
+
+    @ParameterizedTest(name = "{0} {1}x{2} seed {3}")
+    @MethodSource("solversAndMazes")
+    void findsThePath(String solver, int width, int height, long seed){
+        SequentialMaze maze = TestMazes.maze(width, height, seed);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+
+        TestMazes.assertShortestPath(grid, MazeSolver.byName(solver, 3).solve(grid, start, end), start, end);
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void nodeSolverVariantsFindThePath(int width, int height, long seed){
+        SequentialMaze maze = TestMazes.maze(width, height, seed);
+        MazeGrid grid = maze.getGrid();
+        NodeSolver solver = new NodeSolver(maze);
+        int start = solver.getStart();
+        int end = solver.getEnd();
+
+        TestMazes.assertShortestPath(grid, solver.solveMazeRecursiv(start, new int[grid.size()], 0), start, end);
+        for (int[] rule : new int[][]{{0}, {1}, {2}, {0, 2, 1}}){
+            TestMazes.assertShortestPath(grid, solver.solveMazeIteraWithRule(rule), start, end);
+        }
+        TestMazes.assertValidPath(grid, maze.solve(), start, end);
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void splittingSolversFindThePathWithSmallUnits(int width, int height, long seed){
+        SequentialMaze maze = TestMazes.maze(width, height, seed);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+
+        // fork at every junction, tiles of a few cells, a single branch thread or many
+        TestMazes.assertShortestPath(grid, ForkJoinSolver.solve(grid, start, end, 4, 1), start, end);
+        TestMazes.assertShortestPath(grid, TiledSolver.solve(grid, start, end, 4, 5), start, end);
+        TestMazes.assertShortestPath(grid, BranchExplorerSolver.solve(grid, start, end, 1), start, end);
+        TestMazes.assertShortestPath(grid, BranchExplorerSolver.solve(grid, start, end, 64), start, end);
+        TestMazes.assertShortestPath(grid, CooperativeSolver.solve(grid, start, end, 8), start, end);
+        TestMazes.assertShortestPath(grid, JunctionGraph.build(grid, start, end, 4).solve(), start, end);
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void deadEndFillingKernelsAgree(int width, int height, long seed){
+        SequentialMaze maze = TestMazes.maze(width, height, seed);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+
+        TestMazes.assertShortestPath(grid, DeadEndFillingSolver.solve(grid, start, end, 3, false), start, end);
+        TestMazes.assertShortestPath(grid, DeadEndFillingSolver.solve(grid, start, end, 3, true), start, end);
+    }
+
+    @Test
+    void vectorKernelIsUsedWithTheIncubatorModule(){
+        // surefire starts the tests with --add-modules jdk.incubator.vector
+        assertTrue(DeadEndFillingSolver.isVectorized());
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void wallFollowerFindsThePath(int width, int height, long seed){
+        SequentialMaze maze = TestMazes.maze(width, height, seed);
+        MazeGrid grid = maze.getGrid();
+        CompactPath path = WallFollowerSolver.solve(grid, maze.getStart(), maze.getEnd());
+
+        assertTrue(PathVerifier.verify(grid, path, maze.getStart(), maze.getEnd()));
+        assertTrue(PathVerifier.verifyParallel(grid, path, maze.getStart(), maze.getEnd(), 3));
+        assertEquals(TestMazes.bfsLength(grid, grid.index(maze.getStart()), grid.index(maze.getEnd())), path.length() + 1);
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void compactSolversFindThePath(int width, int height, long seed){
+        SequentialMaze maze = TestMazes.maze(width, height, seed);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        int length = TestMazes.bfsLength(grid, start, end);
+
+        CompactPath[] paths = {
+                new NodeSolver(maze).solveMazeCompact(null),
+                CooperativeSolver.solveCompact(grid, start, end, 3, null),
+                ForkJoinSolver.solveCompact(grid, start, end, 3, null),
+                BranchExplorerSolver.solveCompact(grid, start, end, null),
+        };
+        for (CompactPath path : paths){
+            assertTrue(PathVerifier.verify(grid, path, maze.getStart(), maze.getEnd()));
+            assertEquals(length, path.length() + 1);
+        }
+    }
+
+    @Test
+    void compactSolversReportUnreachableEnd(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 2);
+        MazeGrid grid = maze.getGrid();
+        NodeSolver solver = new NodeSolver(maze);
+        int end = grid.index(maze.getEnd());
+        for (int dir = 0; dir < 4; dir++){
+            if (grid.hasPassage(end, dir)){
+                grid.closeWall(end, dir);
+            }
+        }
+
+        assertEquals(null, solver.solveMazeCompact(null));
+        assertEquals(null, CooperativeSolver.solveCompact(grid, solver.getStart(), end, 3, null));
+        assertEquals(null, ForkJoinSolver.solveCompact(grid, solver.getStart(), end, 3, null));
+        assertEquals(null, BranchExplorerSolver.solveCompact(grid, solver.getStart(), end, null));
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void treePathIndexAnswersAnyPair(int width, int height, long seed){
+        MazeGrid grid = TestMazes.maze(width, height, seed).getGrid();
+        TreePathIndex index = TreePathIndex.build(grid);
+        int[] cells = {0, grid.size() / 3, grid.size() / 2, grid.size() - 1};
+        for (int a : cells){
+            for (int b : cells){
+                TestMazes.assertShortestPath(grid, index.path(a, b), a, b);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void shortestPathSolversHandleLoops(int width, int height, long seed){
+        SequentialMaze maze = new SequentialMaze(width, height, new Point(width - 1, 0), new Point(0, height - 1), seed, 0.5);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+
+        TestMazes.assertShortestPath(grid, ParallelBfsSolver.solve(grid, start, end, 1), start, end);
+        TestMazes.assertShortestPath(grid, ParallelBfsSolver.solve(grid, start, end, 4), start, end);
+        TestMazes.assertShortestPath(grid, AStarSolver.solve(grid, start, end), start, end);
+    }
+
+    @Test
+    void solversReportUnreachableEnd(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 1);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        // wall end in completely
+        for (int dir = 0; dir < 4; dir++){
+            if (grid.hasPassage(end, dir)){
+                grid.closeWall(end, dir);
+            }
+        }
+
+        for (String solver : new String[]{"cooperative", "tiled", "bidirectional", "forkjoin", "branch", "deadend", "bfs", "astar", "junction"}){
+            assertEquals(null, MazeSolver.byName(solver, 3).solve(grid, start, end), solver);
+        }
+        assertEquals(null, WallFollowerSolver.solve(grid, maze.getStart(), maze.getEnd()));
+    }
+
+    @Test
+    void nodeSolverRejectsMazesWithLoops(){
+        SequentialMaze maze = new SequentialMaze(23, 17, new Point(22, 0), new Point(0, 16), 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> new NodeSolver(maze));
+    }
+
+    @Test
+    void generatingIntoAGridWithPassagesIsRejected(){
+        MazeGrid grid = new MazeGrid(23, 17);
+        grid.carve(grid.index(3, 3), Direction.E.ordinal());
+        MazeGrid before = grid.copy();
+
+        // generating would not give a perfect maze, but it would be marked as one
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generate(grid, 1));
+        for (int cell = 0; cell < grid.size(); cell++){
+            assertEquals(before.passages(cell), grid.passages(cell));
+        }
+    }
+
+    @Test
+    void nodeSolverNoticesLoopsOpenedAfterGenerating(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 1);
+        new NodeSolver(maze);
+
+        // a closed wall between two horizontal neighbors, opening it adds a loop
+        MazeGrid grid = maze.getGrid();
+        int cell = 0;
+        while (grid.hasPassage(cell, Direction.E.ordinal()) || grid.x(cell) == grid.getWidth() - 1){
+            cell++;
+        }
+        Point from = grid.point(cell);
+        Point to = grid.point(cell + 1);
+        maze.openWall(from, to);
+        assertThrows(IllegalArgumentException.class, () -> new NodeSolver(maze));
+        maze.closeWall(from, to);
+        new NodeSolver(maze);
+    }
+
+    @Test
+    void cooperativeSolverReportsEveryThread(){
+        SequentialMaze maze = TestMazes.maze(150, 140, 2);
+        MazeGrid grid = maze.getGrid();
+        SolverMetrics metrics = new SolverMetrics();
+        int[] path = CooperativeSolver.solve(grid, grid.index(maze.getStart()), grid.index(maze.getEnd()), 4, metrics);
+
+        TestMazes.assertShortestPath(grid, path, grid.index(maze.getStart()), grid.index(maze.getEnd()));
+        assertEquals(4, metrics.getThreads().size());
+        long visited = 0;
+        for (ThreadStats stats : metrics.getThreads()){
+            visited += stats.getCellsVisited();
+        }
+        // every cell is claimed by one thread only
+        assertTrue(visited >= path.length - 1 && visited < grid.size(), "cells visited " + visited);
+    }
+
+    @Test
+    void solversReportTheirWork(){
+        SequentialMaze maze = TestMazes.maze(23, 17, 42);
+        MazeGrid grid = maze.getGrid();
+        int start = grid.index(maze.getStart());
+        int end = grid.index(maze.getEnd());
+        SolverMetrics metrics = new SolverMetrics();
+
+        new NodeSolver(maze).solveMazeRecursiv(start, new int[grid.size()], 0, metrics.thread("Recursiv", "main"));
+        TiledSolver.solve(grid, start, end, 3, 5, metrics);
+        BidirectionalSolver.solve(grid, start, end, metrics);
+        ForkJoinSolver.solve(grid, start, end, 3, 1, metrics);
+        BranchExplorerSolver.solve(grid, start, end, 4, metrics);
+        JunctionGraph.build(grid, start, end).solve(metrics.thread("Junction Graph", "main"));
+
+        List<String> solvers = new ArrayList<>();
+        for (ThreadStats stats : metrics.getThreads()){
+            solvers.add(stats.getSolver());
+            assertTrue(stats.getCellsVisited() > 0 && stats.getPeakDepth() > 0, stats.toJson());
+        }
+        assertEquals(List.of("Recursiv", "Tiled", "Tiled", "Bidirectional", "Bidirectional", "Fork Join", "Branch Explorer", "Junction Graph"), solvers);
+    }
+}
@@ -0,0 +1,111 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Eller's algorithm and the row by row solver, on mazes small enough to be kept as a MazeGrid
+ * and checked with a plain breadth first search.
+ */
+class StreamingTest {
+
+    // one column, one row, and a few shapes on both sides of square
+    private static final int[][] SIZES = {{1, 9}, {9, 1}, {2, 2}, {23, 17}, {17, 60}};
+
+    static Stream<Arguments> mazes(){
+        List<Arguments> arguments = new ArrayList<>();
+        for (int[] size : SIZES){
+            for (long seed : TestMazes.SEEDS){
+                arguments.add(Arguments.of(size[0], size[1], seed));
+            }
+        }
+        return arguments.stream();
+    }
+
+    private static MazeGrid eller(int width, int height, long seed) throws IOException {
+        MazeGrid grid = new MazeGrid(width, height);
+        int[] y = {0};
+        new EllerGenerator(width, seed).generate(height, row -> {
+            for (int x = 0; x < width; x++){
+                grid.or(grid.index(x, y[0]), row[x]);
+            }
+            y[0]++;
+        });
+        return grid;
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void ellerGeneratesPerfectMazes(int width, int height, long seed) throws IOException {
+        MazeGrid grid = eller(width, height, seed);
+
+        // every passage is seen from both sides and stays inside the maze
+        for (int cell = 0; cell < grid.size(); cell++){
+            for (Direction dir : Direction.values()){
+                if (grid.hasPassage(cell, dir.ordinal())){
+                    assertTrue(grid.contains(grid.x(cell) + dir.dx, grid.y(cell) + dir.dy), grid.point(cell) + " " + dir);
+                    assertTrue(grid.hasPassage(grid.neighbor(cell, dir.ordinal()), MazeGrid.opposite(dir.ordinal())), grid.point(cell) + " " + dir);
+                }
+            }
+        }
+        // connected, with one passage less than cells
+        assertTrue(grid.isPerfect());
+    }
+
+    @ParameterizedTest(name = "{0}x{1} seed {2}")
+    @MethodSource("mazes")
+    void streamingSolverFindsTheBreadthFirstDistance(int width, int height, long seed) throws IOException {
+        MazeGrid grid = eller(width, height, seed);
+        int[][] pairs = {{grid.index(width - 1, 0), grid.index(0, height - 1)}, {0, grid.size() - 1},
+                {grid.size() / 2, grid.size() / 3}, {grid.size() - 1, grid.size() - 1}};
+        for (int[] pair : pairs){
+            StreamingSolver solver = new StreamingSolver(width, grid.point(pair[0]), grid.point(pair[1]));
+            new EllerGenerator(width, seed).generate(height, solver);
+            solver.finish();
+
+            assertTrue(solver.isConnected());
+            assertEquals(TestMazes.bfsLength(grid, pair[0], pair[1]) - 1, solver.distance(), grid.point(pair[0]) + " -> " + grid.point(pair[1]));
+            assertEquals(height, solver.getRows());
+        }
+    }
+
+    @Test
+    void streamingMazeFindsThePathInTheSpilledFile(@TempDir Path directory) throws IOException, InterruptedException {
+        StreamingMaze.Result result = StreamingMaze.generateAndSolve(23, 60, 22, 0, 2, directory.resolve("maze.bin"));
+        MazeGrid grid = eller(23, 60, 2);
+        int start = grid.index(22, 0);
+        int end = grid.index(0, 59);
+
+        assertEquals(TestMazes.bfsLength(grid, start, end) - 1, result.getDistance());
+        assertEquals(result.getDistance(), result.getPath().length());
+        assertTrue(PathVerifier.verify(grid, result.getPath(), grid.point(start), grid.point(end)));
+    }
+
+    @Test
+    void streamingMazeFindsTheDistanceWithoutAFile() throws IOException, InterruptedException {
+        StreamingMaze.Result result = StreamingMaze.generateAndSolve(17, 60, 16, 0, 1, null);
+        MazeGrid grid = eller(17, 60, 1);
+
+        assertEquals(TestMazes.bfsLength(grid, grid.index(16, 0), grid.index(0, 59)) - 1, result.getDistance());
+        assertEquals(null, result.getPath());
+    }
+
+    @Test
+    void mazeFilesRejectMoreRowsThanTheyHold(@TempDir Path directory){
+        assertThrows(IllegalArgumentException.class,
+                () -> StreamingMaze.generateAndSolve(4, Integer.MAX_VALUE + 1L, 3, 0, 1, directory.resolve("maze.bin")));
+    }
+}
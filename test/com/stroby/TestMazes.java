@@ -0,0 +1,71 @@
+package com.stroby;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+/**
+ * Small mazes from fixed seeds and a plain breadth first search to check the solvers against.
+ */
+final class TestMazes {
+
+    static final long[] SEEDS = {1, 2, 42};
+    // one column, one row, smaller than a generator region, and larger than a region and a tile
+    static final int[][] SIZES = {{1, 9}, {9, 1}, {23, 17}, {150, 140}};
+
+    private TestMazes() {}
+
+    static SequentialMaze maze(int width, int height, long seed){
+        return new SequentialMaze(width, height, new Point(width - 1, 0), new Point(0, height - 1), seed);
+    }
+
+    /**
+     * @return the number of cells on a shortest path from start to end, or -1 if end can not be reached
+     */
+    static int bfsLength(MazeGrid grid, int start, int end){
+        int[] distance = new int[grid.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[grid.size()];
+        distance[start] = 1;
+        queue[0] = start;
+        int tail = 1;
+        for (int head = 0; head < tail; head++){
+            int cell = queue[head];
+            int neighbors = grid.neighborCount(cell);
+            for (int k = 0; k < neighbors; k++){
+                int next = grid.neighborAt(cell, k);
+                if (distance[next] < 0){
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distance[end];
+    }
+
+    /**
+     * Fails unless the path leads from start to end through passages and is as short as the breadth first search finds.
+     */
+    static void assertShortestPath(MazeGrid grid, int[] path, int start, int end){
+        assertNotNull(path, "no path found");
+        assertValidPath(grid, path, start, end);
+        assertEquals(bfsLength(grid, start, end), path.length, "path length");
+    }
+
+    static void assertValidPath(MazeGrid grid, int[] path, int start, int end){
+        assertNotNull(path, "no path found");
+        CompactPath steps = CompactPath.fromCells(grid, path);
+        assertTrue(PathVerifier.verify(grid, steps, grid.point(start), grid.point(end)), "path does not lead from start to end through passages");
+    }
+
+    static void assertValidPath(MazeGrid grid, Point[] path, int start, int end){
+        assertNotNull(path, "no path found");
+        int[] cells = new int[path.length];
+        for (int i = 0; i < path.length; i++){
+            cells[i] = grid.index(path[i]);
+        }
+        assertValidPath(grid, cells, start, end);
+    }
+}